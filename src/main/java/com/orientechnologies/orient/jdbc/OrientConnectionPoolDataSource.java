@@ -0,0 +1,44 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.SQLException;
+
+import javax.sql.ConnectionPoolDataSource;
+import javax.sql.PooledConnection;
+
+/**
+ * Factory of {@link OrientPooledConnection}s for the connection pools of application servers.
+ * <p>
+ * Every pooled connection opens its own physical connection. If <code>maxStatements</code>
+ * is greater than 0, every pooled connection keeps a cache of that many prepared statements.
+ */
+public class OrientConnectionPoolDataSource extends OrientDataSource implements ConnectionPoolDataSource {
+
+    private final OrientJdbcDriver driver = new OrientJdbcDriver();
+
+    public PooledConnection getPooledConnection() throws SQLException {
+        return getPooledConnection(username, password);
+    }
+
+    public PooledConnection getPooledConnection(String username, String password) throws SQLException {
+        OrientJdbcConnection connection = (OrientJdbcConnection) driver.connect(url, getConnectionProperties(username, password));
+        if (connection == null)
+            throw new SQLException(ErrorMessages.get("DataSource.badUrl", url));
+        return new OrientPooledConnection(connection, maxStatements);
+    }
+}
@@ -21,6 +21,8 @@ import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 import javax.sql.DataSource;
@@ -42,14 +44,26 @@ public class OrientDataSource implements DataSource {
         }
 	}
 
-    private String url;
-    private String username;
-    private String password;
+    protected String url;
+    protected String username;
+    protected String password;
 	protected Properties configuration;
 
     private PrintWriter logger;
     private int loginTimeout;
 
+    //the connections are not pooled unless a maximum pool size is set
+    private int minPoolSize = 0;
+    private int maxPoolSize = 0;
+    private long acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT_MILLIS;
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    protected int maxStatements = 0;
+    //one pool for every pair of credentials
+    private final Map<String, OrientJdbcConnectionPool> pools = new HashMap<String, OrientJdbcConnectionPool>();
+
+    public static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 30000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 600000;
+
     public PrintWriter getLogWriter() throws SQLException {
         return logger;
     }
@@ -86,11 +100,42 @@ public class OrientDataSource implements DataSource {
         if (configuration == null) {
 	        configuration = new Properties();
 	    }
+        if (maxPoolSize > 0)
+            return getPool(username, password).acquire();
         configuration.setProperty(OrientJdbcConnectionProperties.Keys.USERNAME, username);
         configuration.setProperty(OrientJdbcConnectionProperties.Keys.PASSWORD, password);
 		return DriverManager.getConnection(url, configuration);
     }
 
+    private synchronized OrientJdbcConnectionPool getPool(String username, String password) throws SQLException {
+        String key = username + '\u0000' + password;
+        OrientJdbcConnectionPool pool = pools.get(key);
+        if (pool == null) {
+            pool = new OrientJdbcConnectionPool(url, getConnectionProperties(username, password), 
+                    minPoolSize, maxPoolSize, acquireTimeout, idleTimeout, maxStatements);
+            pools.put(key, pool);
+        }
+        return pool;
+    }
+
+    protected Properties getConnectionProperties(String username, String password) {
+        Properties info = new Properties();
+        if (configuration != null)
+            info.putAll(configuration);
+        info.setProperty(OrientJdbcConnectionProperties.Keys.USERNAME, username);
+        info.setProperty(OrientJdbcConnectionProperties.Keys.PASSWORD, password);
+        return info;
+    }
+
+    /**
+     * Closes the idle pooled connections. The connections in use are closed when they are given back. 
+     */
+    public synchronized void close() {
+        for (OrientJdbcConnectionPool pool : pools.values())
+            pool.close();
+        pools.clear();
+    }
+
     public void setUrl(String url) {
         this.url = url;
     }
@@ -102,4 +147,43 @@ public class OrientDataSource implements DataSource {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    /**
+     * @param minPoolSize the number of pooled connections kept open also when they are not used
+     */
+    public void setMinPoolSize(int minPoolSize) {
+        this.minPoolSize = minPoolSize;
+    }
+
+    /**
+     * @param maxPoolSize the maximum number of pooled connections in use at the same time.
+     * 0 (the default) disables the pooling and a new database connection is opened every time.
+     */
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * @param acquireTimeout how many milliseconds a request waits for a pooled connection to be released
+     * when all of them are in use (0 means forever)
+     */
+    public void setAcquireTimeout(long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * @param idleTimeout how many milliseconds a pooled connection can stay unused before being closed
+     * (0 means forever)
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * @param maxStatements the number of closed prepared statements every pooled connection keeps
+     * for reuse. 0 (the default) disables the statement cache.
+     */
+    public void setMaxStatements(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.Map;
+
+/**
+ * The elements of an embedded collection of a document, read through
+ * {@link OrientJdbcResultSet#getObject(String, Class)} with {@link Array} as target type.
+ * The base type is the SQL type shared by all the non-NULL elements, or
+ * {@link Types#JAVA_OBJECT} if they have different types.
+ */
+public class OrientJdbcArray implements Array {
+
+    private Object[] elements;
+    private final int baseType;
+
+    OrientJdbcArray(Object[] iElements) {
+        this.elements = iElements;
+        this.baseType = baseTypeOf(iElements);
+    }
+
+    private static int baseTypeOf(Object[] elements) {
+        int type = Types.NULL;
+        for (Object element : elements) {
+            if (element == null)
+                continue;
+            int elementType = typeOf(element);
+            if (type == Types.NULL)
+                type = elementType;
+            else if (type != elementType)
+                return Types.JAVA_OBJECT;
+        }
+        return type == Types.NULL ? Types.JAVA_OBJECT : type;
+    }
+
+    private static int typeOf(Object element) {
+        if (element instanceof String)
+            return Types.VARCHAR;
+        if (element instanceof Integer)
+            return Types.INTEGER;
+        if (element instanceof Long)
+            return Types.BIGINT;
+        if (element instanceof Short)
+            return Types.SMALLINT;
+        if (element instanceof Byte)
+            return Types.TINYINT;
+        if (element instanceof Double)
+            return Types.DOUBLE;
+        if (element instanceof Float)
+            return Types.REAL;
+        if (element instanceof BigDecimal)
+            return Types.DECIMAL;
+        if (element instanceof Boolean)
+            return Types.BOOLEAN;
+        if (element instanceof java.util.Date)
+            return Types.TIMESTAMP;
+        return Types.JAVA_OBJECT;
+    }
+
+    private void checkNotFreed() throws SQLException {
+        if (elements == null)
+            throw new SQLException(ErrorMessages.get("Array.freed"));
+    }
+
+    public String getBaseTypeName() throws SQLException {
+        checkNotFreed();
+        switch (baseType) {
+        case Types.VARCHAR: return "VARCHAR";
+        case Types.INTEGER: return "INTEGER";
+        case Types.BIGINT: return "BIGINT";
+        case Types.SMALLINT: return "SMALLINT";
+        case Types.TINYINT: return "TINYINT";
+        case Types.DOUBLE: return "DOUBLE";
+        case Types.REAL: return "REAL";
+        case Types.DECIMAL: return "DECIMAL";
+        case Types.BOOLEAN: return "BOOLEAN";
+        case Types.TIMESTAMP: return "TIMESTAMP";
+        default: return "JAVA_OBJECT";
+        }
+    }
+
+    public int getBaseType() throws SQLException {
+        checkNotFreed();
+        return baseType;
+    }
+
+    public Object getArray() throws SQLException {
+        checkNotFreed();
+        return elements.clone();
+    }
+
+    public Object getArray(Map<String, Class<?>> map) throws SQLException {
+        if (map != null && !map.isEmpty())
+            throw new SQLFeatureNotSupportedException();
+        return getArray();
+    }
+
+    public Object getArray(long index, int count) throws SQLException {
+        checkNotFreed();
+        //the elements are numbered from 1 as in JDBC
+        if (index < 1 || count < 0 || index - 1 + count > elements.length)
+            throw new SQLException(ErrorMessages.get("Array.sliceOutOfBound", index, count, elements.length));
+        Object[] slice = new Object[count];
+        System.arraycopy(elements, (int) index - 1, slice, 0, count);
+        return slice;
+    }
+
+    public Object getArray(long index, int count, Map<String, Class<?>> map) throws SQLException {
+        if (map != null && !map.isEmpty())
+            throw new SQLFeatureNotSupportedException();
+        return getArray(index, count);
+    }
+
+    public ResultSet getResultSet() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public ResultSet getResultSet(Map<String, Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public ResultSet getResultSet(long index, int count) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public ResultSet getResultSet(long index, int count, Map<String, Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public void free() throws SQLException {
+        elements = null;
+    }
+}
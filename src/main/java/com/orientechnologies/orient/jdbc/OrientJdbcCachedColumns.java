@@ -0,0 +1,600 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.sql.Types;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+
+/**
+ * The rows of a {@link OrientJdbcCachedRowSet}, kept one column at a time and written to
+ * a stream in a compact binary format that involves neither the OrientDB record
+ * serialization nor the Java one.
+ * <p>
+ * The values are first normalized to one of the types below. A column whose values all
+ * have the same type is kept and written as that type, while the values of any other
+ * column are written each one with its type:
+ * <ul>
+ * <li>INT: integers, shorts and bytes, written as variable-length numbers;</li>
+ * <li>LONG: longs, and integers mixed with them, written as variable-length numbers;</li>
+ * <li>DOUBLE: doubles and floats, written in 8 bytes;</li>
+ * <li>BOOLEAN: written as a bitmap;</li>
+ * <li>DATE: written as the variable-length difference from the previous date;</li>
+ * <li>STRING: written as the dictionary of the distinct strings followed by their codes;</li>
+ * <li>DECIMAL, BYTES and RID: big decimals, byte arrays and the identities of the records.</li>
+ * </ul>
+ * Any other value, like an embedded document or collection, is kept as its string form,
+ * while a linked document is kept as its identity. The NULL values are not written: a
+ * bitmap of the rows of each column tells where they are.
+ */
+final class OrientJdbcCachedColumns {
+
+    //the first byte of the stream, changed along with the format
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final byte INT = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte BOOLEAN = 3;
+    static final byte DATE = 4;
+    static final byte STRING = 5;
+    static final byte DECIMAL = 6;
+    static final byte BYTES = 7;
+    static final byte RID = 8;
+    static final byte MIXED = 9;
+
+    //the SQL types of the kinds of columns, and their names
+    private static final int[] SQL_TYPES = { Types.INTEGER, Types.BIGINT, Types.DOUBLE, Types.BOOLEAN, Types.TIMESTAMP, 
+        Types.VARCHAR, Types.DECIMAL, Types.BINARY, Types.ROWID, Types.JAVA_OBJECT };
+    private static final String[] SQL_TYPE_NAMES = { "INTEGER", "BIGINT", "DOUBLE", "BOOLEAN", "TIMESTAMP", 
+        "VARCHAR", "DECIMAL", "BINARY", "ROWID", "JAVA_OBJECT" };
+
+    private final String[] names;
+    private final byte[] kinds;
+    private final int rowCount;
+    //int[] for INT and the codes of STRING, long[] for LONG and DATE and the bitmap of
+    //BOOLEAN, double[] for DOUBLE and Object[] for the other kinds
+    private final Object[] columns;
+    private final String[][] dictionaries;
+    //the NULL bitmaps of the columns, null for a column without NULL values
+    private final long[][] nulls;
+
+    private OrientJdbcCachedColumns(String[] iNames, byte[] iKinds, int iRowCount, Object[] iColumns, 
+            String[][] iDictionaries, long[][] iNulls) {
+        this.names = iNames;
+        this.kinds = iKinds;
+        this.rowCount = iRowCount;
+        this.columns = iColumns;
+        this.dictionaries = iDictionaries;
+        this.nulls = iNulls;
+    }
+
+    /**
+     * @param iNames the names of the columns
+     * @param rows the values of every row, one per column
+     */
+    static OrientJdbcCachedColumns build(String[] iNames, List<Object[]> rows) {
+        int rowCount = rows.size();
+        byte[] kinds = new byte[iNames.length];
+        Object[] columns = new Object[iNames.length];
+        String[][] dictionaries = new String[iNames.length][];
+        long[][] nulls = new long[iNames.length][];
+        for (int column = 0; column < iNames.length; column++) {
+            Object[] values = new Object[rowCount];
+            byte kind = -1;
+            for (int row = 0; row < rowCount; row++) {
+                Object value = normalize(rows.get(row)[column]);
+                if (value == null) {
+                    if (nulls[column] == null)
+                        nulls[column] = new long[bitmapLength(rowCount)];
+                    nulls[column][row >>> 6] |= 1L << row;
+                } else {
+                    values[row] = value;
+                    kind = merge(kind, kindOf(value));
+                }
+            }
+            //a column of NULL values only is written as an empty dictionary
+            kinds[column] = kind < 0 ? STRING : kind;
+            columns[column] = pack(kinds[column], values, nulls[column], column, dictionaries);
+        }
+        return new OrientJdbcCachedColumns(iNames, kinds, rowCount, columns, dictionaries, nulls);
+    }
+
+    /**
+     * @return the rows from <code>from</code> (included) to <code>to</code> (excluded)
+     */
+    OrientJdbcCachedColumns rows(int from, int to) {
+        List<Object[]> rows = new java.util.ArrayList<Object[]>(Math.max(0, to - from));
+        for (int row = from; row < to; row++) {
+            Object[] values = new Object[names.length];
+            for (int column = 0; column < names.length; column++)
+                values[column] = getValue(column, row);
+            rows.add(values);
+        }
+        return build(names, rows);
+    }
+
+    private static int bitmapLength(int rowCount) {
+        return (rowCount + 63) >>> 6;
+    }
+
+    private static Object normalize(Object value) {
+        if (value == null || value instanceof Integer || value instanceof Long || value instanceof Double || 
+                value instanceof Boolean || value instanceof String || value instanceof BigDecimal || 
+                value instanceof byte[] || value instanceof ORID)
+            return value;
+        if (value instanceof Short || value instanceof Byte)
+            return Integer.valueOf(((Number) value).intValue());
+        if (value instanceof Float)
+            return Double.valueOf(((Number) value).doubleValue());
+        if (value instanceof BigInteger)
+            return new BigDecimal((BigInteger) value);
+        if (value instanceof Number)
+            return new BigDecimal(value.toString());
+        if (value instanceof Date)
+            return value.getClass() == Date.class ? value : new Date(((Date) value).getTime());
+        if (value instanceof OrientRowId)
+            return ((OrientRowId) value).unwrap();
+        //a linked record is kept as its identity, an embedded one as its string form
+        if (value instanceof OIdentifiable && ((OIdentifiable) value).getIdentity().isPersistent())
+            return ((OIdentifiable) value).getIdentity();
+        return value.toString();
+    }
+
+    private static byte kindOf(Object value) {
+        if (value instanceof Integer)
+            return INT;
+        if (value instanceof Long)
+            return LONG;
+        if (value instanceof Double)
+            return DOUBLE;
+        if (value instanceof Boolean)
+            return BOOLEAN;
+        if (value instanceof Date)
+            return DATE;
+        if (value instanceof String)
+            return STRING;
+        if (value instanceof BigDecimal)
+            return DECIMAL;
+        if (value instanceof byte[])
+            return BYTES;
+        return RID;
+    }
+
+    private static byte merge(byte kind, byte valueKind) {
+        if (kind < 0 || kind == valueKind)
+            return valueKind;
+        if ((kind == INT && valueKind == LONG) || (kind == LONG && valueKind == INT))
+            return LONG;
+        return MIXED;
+    }
+
+    private static Object pack(byte kind, Object[] values, long[] nullBitmap, int column, String[][] dictionaries) {
+        int rowCount = values.length;
+        switch (kind) {
+            case INT: {
+                int[] ints = new int[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    if (values[row] != null)
+                        ints[row] = ((Number) values[row]).intValue();
+                return ints;
+            }
+            case LONG:
+            case DATE: {
+                long[] longs = new long[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] instanceof Date)
+                        longs[row] = ((Date) values[row]).getTime();
+                    else if (values[row] != null)
+                        longs[row] = ((Number) values[row]).longValue();
+                }
+                return longs;
+            }
+            case DOUBLE: {
+                double[] doubles = new double[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    if (values[row] != null)
+                        doubles[row] = ((Number) values[row]).doubleValue();
+                return doubles;
+            }
+            case BOOLEAN: {
+                long[] bitmap = new long[bitmapLength(rowCount)];
+                for (int row = 0; row < rowCount; row++)
+                    if (Boolean.TRUE.equals(values[row]))
+                        bitmap[row >>> 6] |= 1L << row;
+                return bitmap;
+            }
+            case STRING: {
+                Map<String, Integer> codes = new LinkedHashMap<String, Integer>();
+                int[] rowCodes = new int[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] == null)
+                        continue;
+                    Integer code = codes.get(values[row]);
+                    if (code == null) {
+                        code = Integer.valueOf(codes.size());
+                        codes.put((String) values[row], code);
+                    }
+                    rowCodes[row] = code.intValue();
+                }
+                dictionaries[column] = codes.keySet().toArray(new String[codes.size()]);
+                return rowCodes;
+            }
+            default:
+                return values;
+        }
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    int getColumnCount() {
+        return names.length;
+    }
+
+    String[] getNames() {
+        return names;
+    }
+
+    /*
+     * The columns and the rows are numbered from 0
+     */
+
+    byte getKind(int column) {
+        return kinds[column];
+    }
+
+    boolean isNull(int column, int row) {
+        long[] nullBitmap = nulls[column];
+        return nullBitmap != null && (nullBitmap[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return the value of a column of kind INT, LONG or DATE, as a long
+     */
+    long getLong(int column, int row) {
+        Object values = columns[column];
+        return kinds[column] == INT ? ((int[]) values)[row] : ((long[]) values)[row];
+    }
+
+    /**
+     * @return the value of a column of kind DOUBLE
+     */
+    double getDouble(int column, int row) {
+        return ((double[]) columns[column])[row];
+    }
+
+    /**
+     * @return the value of the given row of a column, <code>null</code> for a NULL value
+     */
+    Object getValue(int column, int row) {
+        if (isNull(column, row))
+            return null;
+        Object values = columns[column];
+        switch (kinds[column]) {
+            case INT:
+                return Integer.valueOf(((int[]) values)[row]);
+            case LONG:
+                return Long.valueOf(((long[]) values)[row]);
+            case DATE:
+                return new Date(((long[]) values)[row]);
+            case DOUBLE:
+                return Double.valueOf(((double[]) values)[row]);
+            case BOOLEAN:
+                return Boolean.valueOf((((long[]) values)[row >>> 6] & (1L << row)) != 0);
+            case STRING:
+                return dictionaries[column][((int[]) values)[row]];
+            default:
+                return ((Object[]) values)[row];
+        }
+    }
+
+    /**
+     * @return the SQL type of the values of a column
+     */
+    int getSqlType(int column) {
+        return SQL_TYPES[kinds[column]];
+    }
+
+    String getSqlTypeName(int column) {
+        return SQL_TYPE_NAMES[kinds[column]];
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        writeVarLong(out, names.length);
+        writeVarLong(out, rowCount);
+        for (int column = 0; column < names.length; column++) {
+            writeString(out, names[column]);
+            out.writeByte(kinds[column]);
+            out.writeBoolean(nulls[column] != null);
+            if (nulls[column] != null)
+                writeBitmap(out, nulls[column]);
+        }
+        for (int column = 0; column < names.length; column++)
+            writeColumn(out, column);
+    }
+
+    private void writeColumn(DataOutput out, int column) throws IOException {
+        Object values = columns[column];
+        switch (kinds[column]) {
+            case BOOLEAN:
+                writeBitmap(out, (long[]) values);
+                return;
+            case STRING: {
+                String[] dictionary = dictionaries[column];
+                writeVarLong(out, dictionary.length);
+                for (String value : dictionary)
+                    writeString(out, value);
+                //a dictionary of one string tells the value of all the rows
+                if (dictionary.length > 1) {
+                    int[] codes = (int[]) values;
+                    for (int row = 0; row < rowCount; row++)
+                        if (!isNull(column, row))
+                            writeVarLong(out, codes[row]);
+                }
+                return;
+            }
+            case DATE: {
+                long[] dates = (long[]) values;
+                long previous = 0;
+                for (int row = 0; row < rowCount; row++) {
+                    if (!isNull(column, row)) {
+                        writeVarLong(out, zigZag(dates[row] - previous));
+                        previous = dates[row];
+                    }
+                }
+                return;
+            }
+            default:
+                for (int row = 0; row < rowCount; row++) {
+                    if (isNull(column, row))
+                        continue;
+                    Object value = getValue(column, row);
+                    if (kinds[column] == MIXED) {
+                        byte kind = kindOf(value);
+                        out.writeByte(kind);
+                        writeValue(out, kind, value);
+                    } else
+                        writeValue(out, kinds[column], value);
+                }
+        }
+    }
+
+    private static void writeValue(DataOutput out, byte kind, Object value) throws IOException {
+        switch (kind) {
+            case INT:
+            case LONG:
+                writeVarLong(out, zigZag(((Number) value).longValue()));
+                break;
+            case DOUBLE:
+                out.writeDouble(((Double) value).doubleValue());
+                break;
+            case BOOLEAN:
+                out.writeBoolean(((Boolean) value).booleanValue());
+                break;
+            case DATE:
+                writeVarLong(out, zigZag(((Date) value).getTime()));
+                break;
+            case STRING:
+                writeString(out, (String) value);
+                break;
+            case DECIMAL:
+                writeString(out, value.toString());
+                break;
+            case BYTES:
+                writeVarLong(out, ((byte[]) value).length);
+                out.write((byte[]) value);
+                break;
+            default:
+                writeVarLong(out, zigZag(((ORID) value).getClusterId()));
+                writeVarLong(out, zigZag(((ORID) value).getClusterPosition()));
+        }
+    }
+
+    static OrientJdbcCachedColumns read(DataInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION)
+            throw new StreamCorruptedException(ErrorMessages.get("RowSet.unknownFormat", version));
+        int columnCount = (int) readVarLong(in);
+        int rowCount = (int) readVarLong(in);
+        String[] names = new String[columnCount];
+        byte[] kinds = new byte[columnCount];
+        long[][] nulls = new long[columnCount][];
+        for (int column = 0; column < columnCount; column++) {
+            names[column] = readString(in);
+            kinds[column] = in.readByte();
+            if (in.readBoolean())
+                nulls[column] = readBitmap(in, rowCount);
+        }
+        Object[] columns = new Object[columnCount];
+        String[][] dictionaries = new String[columnCount][];
+        OrientJdbcCachedColumns result = new OrientJdbcCachedColumns(names, kinds, rowCount, columns, dictionaries, nulls);
+        for (int column = 0; column < columnCount; column++)
+            result.readColumn(in, column);
+        return result;
+    }
+
+    private void readColumn(DataInput in, int column) throws IOException {
+        switch (kinds[column]) {
+            case BOOLEAN:
+                columns[column] = readBitmap(in, rowCount);
+                return;
+            case STRING: {
+                String[] dictionary = new String[(int) readVarLong(in)];
+                for (int i = 0; i < dictionary.length; i++)
+                    dictionary[i] = readString(in);
+                int[] codes = new int[rowCount];
+                if (dictionary.length > 1) {
+                    for (int row = 0; row < rowCount; row++)
+                        if (!isNull(column, row))
+                            codes[row] = (int) readVarLong(in);
+                }
+                dictionaries[column] = dictionary;
+                columns[column] = codes;
+                return;
+            }
+            case DATE: {
+                long[] dates = new long[rowCount];
+                long previous = 0;
+                for (int row = 0; row < rowCount; row++) {
+                    if (!isNull(column, row)) {
+                        dates[row] = previous + unZigZag(readVarLong(in));
+                        previous = dates[row];
+                    }
+                }
+                columns[column] = dates;
+                return;
+            }
+            case INT: {
+                int[] ints = new int[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    if (!isNull(column, row))
+                        ints[row] = (int) unZigZag(readVarLong(in));
+                columns[column] = ints;
+                return;
+            }
+            case LONG: {
+                long[] longs = new long[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    if (!isNull(column, row))
+                        longs[row] = unZigZag(readVarLong(in));
+                columns[column] = longs;
+                return;
+            }
+            case DOUBLE: {
+                double[] doubles = new double[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    if (!isNull(column, row))
+                        doubles[row] = in.readDouble();
+                columns[column] = doubles;
+                return;
+            }
+            default: {
+                Object[] values = new Object[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    if (!isNull(column, row))
+                        values[row] = readValue(in, kinds[column] == MIXED ? in.readByte() : kinds[column]);
+                }
+                columns[column] = values;
+            }
+        }
+    }
+
+    private static Object readValue(DataInput in, byte kind) throws IOException {
+        switch (kind) {
+            case INT:
+                return Integer.valueOf((int) unZigZag(readVarLong(in)));
+            case LONG:
+                return Long.valueOf(unZigZag(readVarLong(in)));
+            case DOUBLE:
+                return Double.valueOf(in.readDouble());
+            case BOOLEAN:
+                return Boolean.valueOf(in.readBoolean());
+            case DATE:
+                return new Date(unZigZag(readVarLong(in)));
+            case STRING:
+                return readString(in);
+            case DECIMAL:
+                return new BigDecimal(readString(in));
+            case BYTES: {
+                byte[] bytes = new byte[(int) readVarLong(in)];
+                in.readFully(bytes);
+                return bytes;
+            }
+            case RID: {
+                int clusterId = (int) unZigZag(readVarLong(in));
+                return new ORecordId(clusterId, unZigZag(readVarLong(in)));
+            }
+            default:
+                throw new StreamCorruptedException(ErrorMessages.get("RowSet.unknownValueKind", kind));
+        }
+    }
+
+    /*
+     * The variable-length numbers take 7 bits per byte, the highest bit telling if more
+     * bytes follow; the signed numbers are zig-zag encoded, so that the small negative
+     * numbers take few bytes too
+     */
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new StreamCorruptedException(ErrorMessages.get("RowSet.badVariableLengthNumber"));
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeBitmap(DataOutput out, long[] bitmap) throws IOException {
+        for (long word : bitmap)
+            out.writeLong(word);
+    }
+
+    private static long[] readBitmap(DataInput in, int rowCount) throws IOException {
+        long[] bitmap = new long[bitmapLength(rowCount)];
+        for (int i = 0; i < bitmap.length; i++)
+            bitmap[i] = in.readLong();
+        return bitmap;
+    }
+}
@@ -0,0 +1,1438 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.RowSet;
+import javax.sql.RowSetEvent;
+import javax.sql.RowSetMetaData;
+import javax.sql.rowset.BaseRowSet;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetWarning;
+import javax.sql.rowset.spi.SyncProvider;
+import javax.sql.rowset.spi.SyncProviderException;
+
+import com.orientechnologies.orient.core.id.ORID;
+
+/**
+ * A disconnected and read-only {@link CachedRowSet}: it is populated with the rows of a
+ * result set, or with the result of its command, and then it needs neither the result set
+ * nor the connection anymore.
+ * <p>
+ * The rows are kept one column at a time, with the primitive values in arrays of
+ * primitives and the strings in a dictionary of the distinct ones, and they are serialized
+ * in the same compact format, whether the row set is sent through Java serialization or
+ * written by {@link #writeTo(OutputStream)}: the documents of the result are not part of
+ * it, since only the values of their columns are kept. A linked document is kept as its
+ * identity, an embedded one or a collection as its string form.
+ * <p>
+ * The row set cannot be changed: the methods that update, insert or delete its rows throw
+ * a {@link SQLFeatureNotSupportedException}.
+ */
+public class OrientJdbcCachedRowSet extends BaseRowSet implements CachedRowSet, Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String[] NO_COLUMNS = new String[0];
+
+    private static final int BEFORE_FIRST = -1;
+
+    private OrientJdbcCachedColumns columns;
+    private OrientJdbcColumnIndex columnIndex;
+    private int cursor = BEFORE_FIRST;
+    private boolean lastValueNull;
+    private boolean closed;
+    private String tableName;
+    private int[] keyColumns;
+    private int pageSize;
+    private int[] matchColumnIndexes;
+    private String[] matchColumnNames;
+
+    public OrientJdbcCachedRowSet() {
+        initParams();
+        setColumns(OrientJdbcCachedColumns.build(NO_COLUMNS, new ArrayList<Object[]>(0)));
+    }
+
+    private void setColumns(OrientJdbcCachedColumns iColumns) {
+        this.columns = iColumns;
+        this.columnIndex = new OrientJdbcColumnIndex(iColumns.getNames());
+        this.cursor = BEFORE_FIRST;
+        this.closed = false;
+    }
+
+    /**
+     * Writes the rows in the format read by {@link #readFrom(InputStream)}.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        columns.write(data);
+        data.flush();
+    }
+
+    /**
+     * @return a row set with the rows written by {@link #writeTo(OutputStream)}
+     */
+    public static OrientJdbcCachedRowSet readFrom(InputStream in) throws IOException {
+        OrientJdbcCachedRowSet rowSet = new OrientJdbcCachedRowSet();
+        rowSet.setColumns(OrientJdbcCachedColumns.read(new DataInputStream(in)));
+        return rowSet;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeObject(tableName);
+        out.writeObject(keyColumns);
+        //the columns are written to a buffer, since the object streams copy every
+        //single byte written to them into a block of their own
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        writeTo(buffer);
+        out.writeInt(buffer.size());
+        buffer.writeTo((OutputStream) out);
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        tableName = (String) in.readObject();
+        keyColumns = (int[]) in.readObject();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        setColumns(OrientJdbcCachedColumns.read(new DataInputStream(new ByteArrayInputStream(bytes))));
+    }
+
+    public void populate(ResultSet data) throws SQLException {
+        populate(data, 1);
+    }
+
+    public void populate(ResultSet data, int startRow) throws SQLException {
+        if (startRow < 1)
+            throw new SQLException(ErrorMessages.get("ResultSet.badAbsolutePosOnFetchForward", startRow));
+        ResultSetMetaData metaData = data.getMetaData();
+        String[] names = new String[metaData.getColumnCount()];
+        for (int column = 0; column < names.length; column++)
+            names[column] = metaData.getColumnLabel(column + 1);
+        for (int row = 1; row < startRow; row++)
+            if (!data.next())
+                break;
+        int limit = getMaxRows() > 0 ? getMaxRows() : Integer.MAX_VALUE;
+        if (pageSize > 0)
+            limit = Math.min(limit, pageSize);
+        List<Object[]> rows = new ArrayList<Object[]>();
+        while (rows.size() < limit && data.next()) {
+            Object[] values = new Object[names.length];
+            for (int column = 0; column < names.length; column++)
+                values[column] = data.getObject(column + 1);
+            rows.add(values);
+        }
+        setColumns(OrientJdbcCachedColumns.build(names, rows));
+        notifyRowSetChanged();
+    }
+
+    public void execute() throws SQLException {
+        if (getUrl() == null)
+            throw new SQLException(ErrorMessages.get("RowSet.noUrl"));
+        Connection connection = getUsername() == null ? DriverManager.getConnection(getUrl()) : 
+            DriverManager.getConnection(getUrl(), getUsername(), getPassword());
+        try {
+            execute(connection);
+        } finally {
+            connection.close();
+        }
+    }
+
+    public void execute(Connection conn) throws SQLException {
+        if (getCommand() == null)
+            throw new SQLException(ErrorMessages.get("RowSet.noCommand"));
+        PreparedStatement statement = conn.prepareStatement(getCommand());
+        try {
+            Object[] params = getParams();
+            for (int i = 0; i < params.length; i++) {
+                //the parameters set with a type, a scale or a calendar are arrays
+                Object param = params[i];
+                statement.setObject(i + 1, param instanceof Object[] ? ((Object[]) param)[0] : param);
+            }
+            statement.setMaxRows(getMaxRows());
+            statement.setQueryTimeout(getQueryTimeout());
+            ResultSet result = statement.executeQuery();
+            try {
+                populate(result);
+            } finally {
+                result.close();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    public int size() {
+        return columns.getRowCount();
+    }
+
+    public void release() throws SQLException {
+        setColumns(OrientJdbcCachedColumns.build(columns.getNames(), new ArrayList<Object[]>(0)));
+        notifyRowSetChanged();
+    }
+
+    public void close() throws SQLException {
+        release();
+        closed = true;
+    }
+
+    public boolean isClosed() throws SQLException {
+        return closed;
+    }
+
+    public void restoreOriginal() throws SQLException {
+        //the rows cannot be changed: they are always the original ones
+        beforeFirst();
+    }
+
+    public void setOriginalRow() throws SQLException {
+        checkCurrentRow();
+    }
+
+    public ResultSet getOriginal() throws SQLException {
+        return createCopy();
+    }
+
+    public ResultSet getOriginalRow() throws SQLException {
+        checkCurrentRow();
+        return copy(columns.rows(cursor, cursor + 1));
+    }
+
+    public RowSetMetaData getMetaData() throws SQLException {
+        checkOpen();
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(columns.getColumnCount());
+        for (int column = 0; column < columns.getColumnCount(); column++) {
+            metaData.setColumnName(column + 1, columns.getNames()[column]);
+            metaData.setColumnLabel(column + 1, columns.getNames()[column]);
+            metaData.setColumnType(column + 1, columns.getSqlType(column));
+            metaData.setColumnTypeName(column + 1, columns.getSqlTypeName(column));
+            metaData.setNullable(column + 1, ResultSetMetaData.columnNullableUnknown);
+            if (tableName != null)
+                metaData.setTableName(column + 1, tableName);
+        }
+        return metaData;
+    }
+
+    public void setMetaData(RowSetMetaData md) throws SQLException {
+        //the metadata tell the types of the columns kept by the row set
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public String getTableName() throws SQLException {
+        return tableName;
+    }
+
+    public void setTableName(String iTableName) throws SQLException {
+        if (iTableName == null)
+            throw new SQLException(ErrorMessages.get("RowSet.tableNameIsNull"));
+        this.tableName = iTableName;
+    }
+
+    public int[] getKeyColumns() throws SQLException {
+        return keyColumns == null ? new int[0] : keyColumns.clone();
+    }
+
+    public void setKeyColumns(int[] keys) throws SQLException {
+        for (int key : keys)
+            checkColumn(key);
+        this.keyColumns = keys.clone();
+    }
+
+    public Collection<?> toCollection() throws SQLException {
+        List<Object[]> rows = new ArrayList<Object[]>(size());
+        for (int row = 0; row < size(); row++) {
+            Object[] values = new Object[columns.getColumnCount()];
+            for (int column = 0; column < values.length; column++)
+                values[column] = columns.getValue(column, row);
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    public Collection<?> toCollection(int column) throws SQLException {
+        checkColumn(column);
+        List<Object> values = new ArrayList<Object>(size());
+        for (int row = 0; row < size(); row++)
+            values.add(columns.getValue(column - 1, row));
+        return values;
+    }
+
+    public Collection<?> toCollection(String column) throws SQLException {
+        return toCollection(findColumn(column));
+    }
+
+    public RowSet createShared() throws SQLException {
+        try {
+            //the rows are never changed, so that the clone can share them
+            return (RowSet) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    public CachedRowSet createCopy() throws SQLException {
+        OrientJdbcCachedRowSet copy = copy(columns);
+        copy.matchColumnIndexes = matchColumnIndexes;
+        copy.matchColumnNames = matchColumnNames;
+        return copy;
+    }
+
+    public CachedRowSet createCopySchema() throws SQLException {
+        return copy(columns.rows(0, 0));
+    }
+
+    public CachedRowSet createCopyNoConstraints() throws SQLException {
+        return copy(columns);
+    }
+
+    private OrientJdbcCachedRowSet copy(OrientJdbcCachedColumns iColumns) throws SQLException {
+        checkOpen();
+        OrientJdbcCachedRowSet copy = new OrientJdbcCachedRowSet();
+        copy.setColumns(iColumns);
+        copy.tableName = tableName;
+        copy.keyColumns = keyColumns;
+        copy.pageSize = pageSize;
+        copy.setCommand(getCommand());
+        copy.setType(getType());
+        copy.setMaxRows(getMaxRows());
+        return copy;
+    }
+
+    public RowSetWarning getRowSetWarnings() throws SQLException {
+        return null;
+    }
+
+    public boolean getShowDeleted() throws SQLException {
+        return false;
+    }
+
+    public void setShowDeleted(boolean b) throws SQLException {
+        //no row can be deleted
+    }
+
+    public void setPageSize(int size) throws SQLException {
+        if (size < 0 || (getMaxRows() > 0 && size > getMaxRows()))
+            throw new SQLException(ErrorMessages.get("RowSet.badPageSize", size, getMaxRows()));
+        this.pageSize = size;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean nextPage() throws SQLException {
+        //the row set does not keep the result set it has been populated with
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public boolean previousPage() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public void rowSetPopulated(RowSetEvent event, int numRows) throws SQLException {
+        if (numRows < 0 || numRows < getFetchSize())
+            throw new SQLException(ErrorMessages.get("RowSet.badPopulatedRows", numRows, getFetchSize()));
+        if (size() % numRows == 0)
+            notifyRowSetChanged();
+    }
+
+    public SyncProvider getSyncProvider() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public void setSyncProvider(String provider) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public void acceptChanges() throws SyncProviderException {
+        throw new SyncProviderException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void acceptChanges(Connection con) throws SyncProviderException {
+        throw new SyncProviderException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void commit() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public void rollback() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public void rollback(Savepoint s) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public boolean columnUpdated(int idx) throws SQLException {
+        checkCurrentRow();
+        checkColumn(idx);
+        return false;
+    }
+
+    public boolean columnUpdated(String columnName) throws SQLException {
+        return columnUpdated(findColumn(columnName));
+    }
+
+    public void undoUpdate() throws SQLException {
+        //no row can be updated
+    }
+
+    public void undoInsert() throws SQLException {
+        throw new SQLException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void undoDelete() throws SQLException {
+        throw new SQLException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    /*
+     * The match columns of Joinable
+     */
+
+    public void setMatchColumn(int columnIdx) throws SQLException {
+        setMatchColumn(new int[] { columnIdx });
+    }
+
+    public void setMatchColumn(int[] columnIdxes) throws SQLException {
+        for (int columnIdx : columnIdxes)
+            if (columnIdx < 1)
+                throw new SQLException(ErrorMessages.get("RowSet.badMatchColumn", columnIdx));
+        this.matchColumnIndexes = columnIdxes.clone();
+    }
+
+    public void setMatchColumn(String columnName) throws SQLException {
+        setMatchColumn(new String[] { columnName });
+    }
+
+    public void setMatchColumn(String[] columnNames) throws SQLException {
+        for (String columnName : columnNames)
+            if (columnName == null || columnName.length() == 0)
+                throw new SQLException(ErrorMessages.get("RowSet.badMatchColumn", columnName));
+        this.matchColumnNames = columnNames.clone();
+    }
+
+    public int[] getMatchColumnIndexes() throws SQLException {
+        if (matchColumnIndexes == null)
+            throw new SQLException(ErrorMessages.get("RowSet.matchColumnNotSet"));
+        return matchColumnIndexes.clone();
+    }
+
+    public String[] getMatchColumnNames() throws SQLException {
+        if (matchColumnNames == null)
+            throw new SQLException(ErrorMessages.get("RowSet.matchColumnNotSet"));
+        return matchColumnNames.clone();
+    }
+
+    public void unsetMatchColumn(int columnIdx) throws SQLException {
+        unsetMatchColumn(new int[] { columnIdx });
+    }
+
+    public void unsetMatchColumn(int[] columnIdxes) throws SQLException {
+        if (matchColumnIndexes == null || !Arrays.equals(matchColumnIndexes, columnIdxes))
+            throw new SQLException(ErrorMessages.get("RowSet.badMatchColumn", Arrays.toString(columnIdxes)));
+        this.matchColumnIndexes = null;
+    }
+
+    public void unsetMatchColumn(String columnName) throws SQLException {
+        unsetMatchColumn(new String[] { columnName });
+    }
+
+    public void unsetMatchColumn(String[] columnNames) throws SQLException {
+        if (matchColumnNames == null || !Arrays.equals(matchColumnNames, columnNames))
+            throw new SQLException(ErrorMessages.get("RowSet.badMatchColumn", Arrays.toString(columnNames)));
+        this.matchColumnNames = null;
+    }
+
+    /*
+     * The cursor
+     */
+
+    private void checkOpen() throws SQLException {
+        if (closed)
+            throw new SQLException(ErrorMessages.get("RowSet.closed"));
+    }
+
+    private void checkScrollable() throws SQLException {
+        checkOpen();
+        if (getType() == ResultSet.TYPE_FORWARD_ONLY)
+            throw new SQLException(ErrorMessages.get("RowSet.forwardOnly"));
+    }
+
+    private void checkCurrentRow() throws SQLException {
+        checkOpen();
+        if (cursor < 0 || cursor >= size())
+            throw new SQLException(ErrorMessages.get("RowSet.noCurrentRow"));
+    }
+
+    private void checkColumn(int column) throws SQLException {
+        if (column < 1)
+            throw new SQLException(ErrorMessages.get("ResultSet.columnIndexLessThanMin", column));
+        if (column > columns.getColumnCount())
+            throw new SQLException(ErrorMessages.get("ResultSet.columnIndexGreaterThanMax", columns.getColumnCount(), column));
+    }
+
+    /**
+     * @return <code>true</code> if the cursor is on a row, once moved to the given one or
+     * before the first or after the last row
+     */
+    private boolean moveTo(int row) throws SQLException {
+        cursor = Math.max(BEFORE_FIRST, Math.min(row, size()));
+        notifyCursorMoved();
+        return cursor >= 0 && cursor < size();
+    }
+
+    public boolean next() throws SQLException {
+        checkOpen();
+        return moveTo(cursor + 1);
+    }
+
+    public boolean previous() throws SQLException {
+        checkScrollable();
+        return moveTo(cursor - 1);
+    }
+
+    public boolean first() throws SQLException {
+        checkScrollable();
+        return moveTo(0);
+    }
+
+    public boolean last() throws SQLException {
+        checkScrollable();
+        return moveTo(size() - 1);
+    }
+
+    public void beforeFirst() throws SQLException {
+        checkScrollable();
+        moveTo(BEFORE_FIRST);
+    }
+
+    public void afterLast() throws SQLException {
+        checkScrollable();
+        moveTo(size());
+    }
+
+    public boolean absolute(int row) throws SQLException {
+        checkScrollable();
+        if (row == 0)
+            return moveTo(BEFORE_FIRST);
+        return moveTo(row > 0 ? row - 1 : size() + row);
+    }
+
+    public boolean relative(int rows) throws SQLException {
+        checkScrollable();
+        checkCurrentRow();
+        return moveTo(cursor + rows);
+    }
+
+    public boolean isBeforeFirst() throws SQLException {
+        checkOpen();
+        return cursor == BEFORE_FIRST && size() > 0;
+    }
+
+    public boolean isAfterLast() throws SQLException {
+        checkOpen();
+        return cursor >= size() && size() > 0;
+    }
+
+    public boolean isFirst() throws SQLException {
+        checkOpen();
+        return cursor == 0 && size() > 0;
+    }
+
+    public boolean isLast() throws SQLException {
+        checkOpen();
+        return cursor == size() - 1;
+    }
+
+    public int getRow() throws SQLException {
+        checkOpen();
+        return cursor >= 0 && cursor < size() ? cursor + 1 : 0;
+    }
+
+    public void moveToCurrentRow() throws SQLException {
+        //the cursor never leaves the current row for the insert row
+        checkOpen();
+    }
+
+    public void moveToInsertRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void cancelRowUpdates() throws SQLException {
+        checkCurrentRow();
+    }
+
+    public void insertRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void deleteRow() throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void refreshRow() throws SQLException {
+        //the row set is disconnected: its rows are the ones it has been populated with
+        checkCurrentRow();
+    }
+
+    public boolean rowUpdated() throws SQLException {
+        checkCurrentRow();
+        return false;
+    }
+
+    public boolean rowInserted() throws SQLException {
+        checkCurrentRow();
+        return false;
+    }
+
+    public boolean rowDeleted() throws SQLException {
+        checkCurrentRow();
+        return false;
+    }
+
+    public int getConcurrency() throws SQLException {
+        return ResultSet.CONCUR_READ_ONLY;
+    }
+
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    public int getHoldability() throws SQLException {
+        return ResultSet.HOLD_CURSORS_OVER_COMMIT;
+    }
+
+    public Statement getStatement() throws SQLException {
+        return null;
+    }
+
+    public String getCursorName() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public SQLWarning getWarnings() throws SQLException {
+        return null;
+    }
+
+    public void clearWarnings() throws SQLException {
+    }
+
+    public int findColumn(String columnLabel) throws SQLException {
+        checkOpen();
+        int column = columnIndex.indexOf(columnLabel);
+        if (column < 0)
+            throw new SQLException(ErrorMessages.get("ResultSet.missingColumnLabel", columnLabel));
+        return column + 1;
+    }
+
+    public boolean wasNull() throws SQLException {
+        return lastValueNull;
+    }
+
+    /*
+     * The values of the current row
+     */
+
+    private boolean readNull(int column) throws SQLException {
+        checkCurrentRow();
+        checkColumn(column);
+        lastValueNull = columns.isNull(column - 1, cursor);
+        return lastValueNull;
+    }
+
+    private Object readValue(int column) throws SQLException {
+        return readNull(column) ? null : columns.getValue(column - 1, cursor);
+    }
+
+    private SQLException getItemException(int column, Class<?> type, Exception cause) {
+        return new SQLException(ErrorMessages.get("ResultSet.getItem", columns.getNames()[column - 1], type.getName(), cursor + 1), cause);
+    }
+
+    private Number readNumber(int column, Class<?> type) throws SQLException {
+        Object value = readValue(column);
+        if (value == null || value instanceof Number)
+            return (Number) value;
+        try {
+            if (value instanceof Boolean)
+                return Integer.valueOf(((Boolean) value).booleanValue() ? 1 : 0);
+            if (value instanceof java.util.Date)
+                return Long.valueOf(((java.util.Date) value).getTime());
+            return new BigDecimal(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw getItemException(column, type, e);
+        }
+    }
+
+    private long readLong(int column, Class<?> type) throws SQLException {
+        if (readNull(column))
+            return 0;
+        byte kind = columns.getKind(column - 1);
+        //the columns of integers are read without boxing their values
+        if (kind == OrientJdbcCachedColumns.INT || kind == OrientJdbcCachedColumns.LONG)
+            return columns.getLong(column - 1, cursor);
+        return readNumber(column, type).longValue();
+    }
+
+    private <T> T readConverted(int column, Class<T> type) throws SQLException {
+        Object value = readValue(column);
+        if (value == null)
+            return null;
+        try {
+            return type.cast(OrientJdbcConverter.forType(type).convert(value));
+        } catch (RuntimeException e) {
+            throw getItemException(column, type, e);
+        }
+    }
+
+    public Object getObject(int columnIndex) throws SQLException {
+        return readValue(columnIndex);
+    }
+
+    public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        if (type == null)
+            throw new SQLException(ErrorMessages.get("ResultSet.typeIsNull", columns.getNames()[columnIndex - 1], cursor + 1));
+        return readConverted(columnIndex, type);
+    }
+
+    public String getString(int columnIndex) throws SQLException {
+        Object value = readValue(columnIndex);
+        if (value instanceof byte[])
+            return new String((byte[]) value, UTF_8);
+        return value == null ? null : value.toString();
+    }
+
+    public String getNString(int columnIndex) throws SQLException {
+        return getString(columnIndex);
+    }
+
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        Object value = readValue(columnIndex);
+        if (value == null)
+            return false;
+        if (value instanceof Boolean)
+            return ((Boolean) value).booleanValue();
+        if (value instanceof Number)
+            return ((Number) value).doubleValue() != 0;
+        String string = value.toString().trim();
+        return string.equalsIgnoreCase("true") || string.equals("1");
+    }
+
+    public byte getByte(int columnIndex) throws SQLException {
+        return (byte) readLong(columnIndex, Byte.class);
+    }
+
+    public short getShort(int columnIndex) throws SQLException {
+        return (short) readLong(columnIndex, Short.class);
+    }
+
+    public int getInt(int columnIndex) throws SQLException {
+        return (int) readLong(columnIndex, Integer.class);
+    }
+
+    public long getLong(int columnIndex) throws SQLException {
+        return readLong(columnIndex, Long.class);
+    }
+
+    public float getFloat(int columnIndex) throws SQLException {
+        return (float) getDouble(columnIndex);
+    }
+
+    public double getDouble(int columnIndex) throws SQLException {
+        if (readNull(columnIndex))
+            return 0;
+        if (columns.getKind(columnIndex - 1) == OrientJdbcCachedColumns.DOUBLE)
+            return columns.getDouble(columnIndex - 1, cursor);
+        return readNumber(columnIndex, Double.class).doubleValue();
+    }
+
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        Number value = readNumber(columnIndex, BigDecimal.class);
+        if (value == null || value instanceof BigDecimal)
+            return (BigDecimal) value;
+        if (value instanceof Double)
+            return BigDecimal.valueOf(value.doubleValue());
+        return BigDecimal.valueOf(value.longValue());
+    }
+
+    @SuppressWarnings("deprecation")
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+        BigDecimal value = getBigDecimal(columnIndex);
+        return value == null ? null : value.setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        Object value = readValue(columnIndex);
+        if (value == null || value instanceof byte[])
+            return (byte[]) value;
+        if (value instanceof ORID)
+            return new OrientRowId((ORID) value).getBytes();
+        return value.toString().getBytes(UTF_8);
+    }
+
+    public Date getDate(int columnIndex) throws SQLException {
+        return readConverted(columnIndex, Date.class);
+    }
+
+    public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+        if (cal == null)
+            throw new SQLException(ErrorMessages.get("ResultSet.calendarIsNull", columns.getNames()[columnIndex - 1], cursor + 1));
+        Date date = getDate(columnIndex);
+        if (date == null)
+            return null;
+        cal.setTimeInMillis(date.getTime());
+        return new Date(cal.getTimeInMillis());
+    }
+
+    public Time getTime(int columnIndex) throws SQLException {
+        return readConverted(columnIndex, Time.class);
+    }
+
+    public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+        if (cal == null)
+            throw new SQLException(ErrorMessages.get("ResultSet.calendarIsNull", columns.getNames()[columnIndex - 1], cursor + 1));
+        Time time = getTime(columnIndex);
+        if (time == null)
+            return null;
+        cal.setTimeInMillis(time.getTime());
+        return new Time(cal.getTimeInMillis());
+    }
+
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        return readConverted(columnIndex, Timestamp.class);
+    }
+
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+        if (cal == null)
+            throw new SQLException(ErrorMessages.get("ResultSet.calendarIsNull", columns.getNames()[columnIndex - 1], cursor + 1));
+        Timestamp timestamp = getTimestamp(columnIndex);
+        if (timestamp == null)
+            return null;
+        cal.setTimeInMillis(timestamp.getTime());
+        return new Timestamp(cal.getTimeInMillis());
+    }
+
+    public RowId getRowId(int columnIndex) throws SQLException {
+        Object value = readValue(columnIndex);
+        if (value == null)
+            return null;
+        if (value instanceof ORID)
+            return new OrientRowId((ORID) value);
+        throw getItemException(columnIndex, RowId.class, new ClassCastException(value.getClass().getName()));
+    }
+
+    public URL getURL(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        try {
+            return value == null ? null : new URL(value);
+        } catch (MalformedURLException e) {
+            throw getItemException(columnIndex, URL.class, e);
+        }
+    }
+
+    public InputStream getAsciiStream(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        return value == null ? null : new ByteArrayInputStream(value.getBytes(US_ASCII));
+    }
+
+    public InputStream getBinaryStream(int columnIndex) throws SQLException {
+        byte[] value = getBytes(columnIndex);
+        return value == null ? null : new ByteArrayInputStream(value);
+    }
+
+    public Reader getCharacterStream(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        return value == null ? null : new StringReader(value);
+    }
+
+    public Reader getNCharacterStream(int columnIndex) throws SQLException {
+        return getCharacterStream(columnIndex);
+    }
+
+    @SuppressWarnings("deprecation")
+    public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public Array getArray(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public Blob getBlob(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public Clob getClob(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public NClob getNClob(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public Ref getRef(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public SQLXML getSQLXML(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    /*
+     * The values by column label
+     */
+
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        return getObject(findColumn(columnLabel), type);
+    }
+
+    public Array getArray(String columnLabel) throws SQLException {
+        return getArray(findColumn(columnLabel));
+    }
+
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        return getBigDecimal(findColumn(columnLabel));
+    }
+
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+        return getBigDecimal(findColumn(columnLabel), scale);
+    }
+
+    public Blob getBlob(String columnLabel) throws SQLException {
+        return getBlob(findColumn(columnLabel));
+    }
+
+    public Clob getClob(String columnLabel) throws SQLException {
+        return getClob(findColumn(columnLabel));
+    }
+
+    public Date getDate(String columnLabel) throws SQLException {
+        return getDate(findColumn(columnLabel));
+    }
+
+    public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+        return getDate(findColumn(columnLabel), cal);
+    }
+
+    public InputStream getAsciiStream(String columnLabel) throws SQLException {
+        return getAsciiStream(findColumn(columnLabel));
+    }
+
+    public InputStream getBinaryStream(String columnLabel) throws SQLException {
+        return getBinaryStream(findColumn(columnLabel));
+    }
+
+    public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+        return getUnicodeStream(findColumn(columnLabel));
+    }
+
+    public NClob getNClob(String columnLabel) throws SQLException {
+        return getNClob(findColumn(columnLabel));
+    }
+
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+        return getObject(findColumn(columnLabel), map);
+    }
+
+    public Reader getCharacterStream(String columnLabel) throws SQLException {
+        return getCharacterStream(findColumn(columnLabel));
+    }
+
+    public Reader getNCharacterStream(String columnLabel) throws SQLException {
+        return getNCharacterStream(findColumn(columnLabel));
+    }
+
+    public Ref getRef(String columnLabel) throws SQLException {
+        return getRef(findColumn(columnLabel));
+    }
+
+    public RowId getRowId(String columnLabel) throws SQLException {
+        return getRowId(findColumn(columnLabel));
+    }
+
+    public SQLXML getSQLXML(String columnLabel) throws SQLException {
+        return getSQLXML(findColumn(columnLabel));
+    }
+
+    public String getNString(String columnLabel) throws SQLException {
+        return getNString(findColumn(columnLabel));
+    }
+
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    public Time getTime(String columnLabel) throws SQLException {
+        return getTime(findColumn(columnLabel));
+    }
+
+    public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+        return getTime(findColumn(columnLabel), cal);
+    }
+
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return getTimestamp(findColumn(columnLabel));
+    }
+
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+        return getTimestamp(findColumn(columnLabel), cal);
+    }
+
+    public URL getURL(String columnLabel) throws SQLException {
+        return getURL(findColumn(columnLabel));
+    }
+
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    public byte getByte(String columnLabel) throws SQLException {
+        return getByte(findColumn(columnLabel));
+    }
+
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        return getBytes(findColumn(columnLabel));
+    }
+
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    public float getFloat(String columnLabel) throws SQLException {
+        return getFloat(findColumn(columnLabel));
+    }
+
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    public short getShort(String columnLabel) throws SQLException {
+        return getShort(findColumn(columnLabel));
+    }
+
+    /*
+     * The row set cannot be changed
+     */
+
+    public void updateArray(int columnIndex, Array x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateArray(String columnLabel, Array x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBlob(int columnIndex, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBlob(int columnIndex, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBlob(int columnIndex, Blob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBlob(String columnLabel, InputStream x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBlob(String columnLabel, InputStream x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBlob(String columnLabel, Blob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateByte(int columnIndex, byte x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateByte(String columnLabel, byte x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateCharacterStream(String columnLabel, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateCharacterStream(String columnLabel, Reader x, int length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateCharacterStream(String columnLabel, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateClob(int columnIndex, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateClob(int columnIndex, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateClob(int columnIndex, Clob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateClob(String columnLabel, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateClob(String columnLabel, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateClob(String columnLabel, Clob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateDate(int columnIndex, Date x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateDate(String columnLabel, Date x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateDouble(int columnIndex, double x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateDouble(String columnLabel, double x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateFloat(int columnIndex, float x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateFloat(String columnLabel, float x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateInt(int columnIndex, int x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateInt(String columnLabel, int x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateLong(int columnIndex, long x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateLong(String columnLabel, long x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNCharacterStream(String columnLabel, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNCharacterStream(String columnLabel, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNClob(int columnIndex, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNClob(int columnIndex, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNClob(int columnIndex, NClob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNClob(String columnLabel, Reader x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNClob(String columnLabel, Reader x, long length) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNClob(String columnLabel, NClob x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNString(int columnIndex, String x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNString(String columnLabel, String x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNull(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateNull(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateObject(int columnIndex, Object x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateObject(String columnLabel, Object x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateRef(int columnIndex, Ref x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateRef(String columnLabel, Ref x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateRowId(int columnIndex, RowId x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateRowId(String columnLabel, RowId x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateSQLXML(int columnIndex, SQLXML x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateSQLXML(String columnLabel, SQLXML x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateShort(int columnIndex, short x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateShort(String columnLabel, short x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateString(int columnIndex, String x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateString(String columnLabel, String x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateTime(int columnIndex, Time x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateTime(String columnLabel, Time x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+        throw new SQLFeatureNotSupportedException(ErrorMessages.get("RowSet.readOnly"));
+    }
+
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        if (iface == null)
+            throw new SQLException(ErrorMessages.get("Wrapper.wrappedClassIsNull"));
+        return iface.isInstance(this);
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface == null)
+            throw new SQLException(ErrorMessages.get("Wrapper.wrappedClassIsNull"));
+        try {
+            return iface.cast(this);
+        } catch (ClassCastException e) {
+            throw new SQLException(e);
+        }
+    }
+}
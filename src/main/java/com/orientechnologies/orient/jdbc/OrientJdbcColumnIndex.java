@@ -0,0 +1,80 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+/**
+ * Immutable case-insensitive map from the column labels of a result set to their index.
+ * <p>
+ * The lookup neither converts the label to a canonical case nor allocates any object,
+ * so it can be done for every value read by the label-based getters. When two columns
+ * have the same label ignoring the case, the column whose name matches exactly wins,
+ * otherwise the first of them is returned as required by {@link java.sql.ResultSet}.
+ */
+final class OrientJdbcColumnIndex {
+
+    private final String[] columns;
+    //open addressing table of column indexes plus one (0 marks an empty slot)
+    private final int[] slots;
+    private final int mask;
+
+    OrientJdbcColumnIndex(String[] iColumns) {
+        this.columns = iColumns;
+        int capacity = 4;
+        while (capacity < iColumns.length * 2)
+            capacity <<= 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < iColumns.length; i++) {
+            int slot = hash(iColumns[i]) & mask;
+            while (slots[slot] != 0)
+                slot = (slot + 1) & mask;
+            slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * @return the zero-based index of the column with the given label or -1 if there is no such column
+     */
+    int indexOf(String label) {
+        if (label == null)
+            return -1;
+        int found = -1;
+        int slot = hash(label) & mask;
+        while (slots[slot] != 0) {
+            int index = slots[slot] - 1;
+            String column = columns[index];
+            if (column.equals(label))
+                return index;
+            if ((found == -1 || index < found) && column.equalsIgnoreCase(label))
+                found = index;
+            slot = (slot + 1) & mask;
+        }
+        return found;
+    }
+
+    int size() {
+        return columns.length;
+    }
+
+    private static int hash(String label) {
+        int h = 0;
+        for (int i = 0, length = label.length(); i < length; i++)
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(label.charAt(i)));
+        //spread the high bits, as the table size is a power of two
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandExecutorSQLAbstract;
+
+/**
+ * The rows of a query result decoded once into one array per column.
+ * <p>
+ * A column whose values are all integers, longs or floating point numbers is kept in
+ * an <code>int[]</code>, <code>long[]</code> or <code>double[]</code> array with a bitmap
+ * of its NULL values; any other column is kept as an array of objects. The result set
+ * of a statement in columnar mode (see {@link OrientJdbcStatement#setColumnar(boolean)})
+ * reads its values from here, and the whole columns can be read by unwrapping it:
+ * <pre>
+ * double[] prices = resultSet.unwrap(OrientJdbcColumnarResult.class).getColumnAsDoubleArray(2);
+ * </pre>
+ * The columns are numbered from 1 as in JDBC, while the rows are the indexes of the arrays.
+ */
+public class OrientJdbcColumnarResult {
+
+    private static final String RID_COLUMN_NAME = OCommandExecutorSQLAbstract.KEYWORD_RID;
+
+    private static final byte INT = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte OBJECT = 3;
+
+    private final String[] columnNames;
+    private final int rowCount;
+    private final byte[] kinds;
+    //int[], long[], double[] or Object[] according to the kind of each column
+    private final Object[] columns;
+    //the NULL bitmaps of the primitive columns
+    private final long[][] nulls;
+    private final ORID[] identities;
+    //the first document, which tells the schema of the rows
+    private final ODocument prototype;
+
+    OrientJdbcColumnarResult(String[] iColumnNames, List<ODocument> iRecords) {
+        this.columnNames = iColumnNames;
+        this.rowCount = iRecords.size();
+        this.kinds = new byte[iColumnNames.length];
+        this.columns = new Object[iColumnNames.length];
+        this.nulls = new long[iColumnNames.length][];
+        this.identities = new ORID[rowCount];
+        this.prototype = rowCount > 0 ? iRecords.get(0) : null;
+
+        Object[][] values = new Object[iColumnNames.length][rowCount];
+        int row = 0;
+        for (ODocument record : iRecords) {
+            identities[row] = record.getIdentity();
+            for (int column = 0; column < iColumnNames.length; column++) {
+                Object value = record.field(iColumnNames[column]);
+                if (value == null && RID_COLUMN_NAME.equals(iColumnNames[column]))
+                    value = identities[row];
+                values[column][row] = value;
+            }
+            row++;
+        }
+        for (int column = 0; column < iColumnNames.length; column++)
+            decode(column, values[column]);
+    }
+
+    private void decode(int column, Object[] values) {
+        byte kind = INT;
+        for (int row = 0; row < rowCount && kind != OBJECT; row++) {
+            Object value = values[row];
+            if (value == null || value instanceof Integer || value instanceof Short || value instanceof Byte)
+                continue;
+            if (value instanceof Long)
+                kind = kind == DOUBLE ? OBJECT : (kind == INT ? LONG : kind);
+            else if (value instanceof Double || value instanceof Float)
+                //a long cannot be always converted to a double without losing precision
+                kind = kind == LONG ? OBJECT : DOUBLE;
+            else
+                kind = OBJECT;
+        }
+        kinds[column] = kind;
+        if (kind == OBJECT) {
+            columns[column] = values;
+            return;
+        }
+        long[] nullBitmap = new long[(rowCount + 63) >>> 6];
+        int[] ints = kind == INT ? new int[rowCount] : null;
+        long[] longs = kind == LONG ? new long[rowCount] : null;
+        double[] doubles = kind == DOUBLE ? new double[rowCount] : null;
+        for (int row = 0; row < rowCount; row++) {
+            Number value = (Number) values[row];
+            if (value == null)
+                nullBitmap[row >>> 6] |= 1L << row;
+            else if (kind == INT)
+                ints[row] = value.intValue();
+            else if (kind == LONG)
+                longs[row] = value.longValue();
+            else
+                doubles[row] = value.doubleValue();
+        }
+        nulls[column] = nullBitmap;
+        columns[column] = kind == INT ? ints : (kind == LONG ? longs : doubles);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    public String getColumnName(int column) throws SQLException {
+        return columnNames[checkColumn(column)];
+    }
+
+    /**
+     * @return <code>true</code> if the value of the given column in the given row is NULL
+     */
+    public boolean isNull(int column, int row) throws SQLException {
+        return isNullValue(checkColumn(column), row);
+    }
+
+    /**
+     * @return the values of a numeric column, where a NULL value is 0. The returned array
+     * is the one kept by this object if the column holds floating point numbers, so it
+     * must not be modified.
+     * @throws SQLException if the column has a value that is not a number
+     */
+    public double[] getColumnAsDoubleArray(int column) throws SQLException {
+        int index = checkColumn(column);
+        switch (kinds[index]) {
+            case DOUBLE:
+                return (double[]) columns[index];
+            case INT: {
+                int[] ints = (int[]) columns[index];
+                double[] result = new double[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    result[row] = ints[row];
+                return result;
+            }
+            case LONG: {
+                long[] longs = (long[]) columns[index];
+                double[] result = new double[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    result[row] = longs[row];
+                return result;
+            }
+            default: {
+                Object[] values = (Object[]) columns[index];
+                double[] result = new double[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    result[row] = toNumber(index, values[row]).doubleValue();
+                return result;
+            }
+        }
+    }
+
+    /**
+     * @return the values of a numeric column, where a NULL value is 0. The returned array
+     * is the one kept by this object if the column holds longs, so it must not be modified.
+     * @throws SQLException if the column has a value that is not a number
+     */
+    public long[] getColumnAsLongArray(int column) throws SQLException {
+        int index = checkColumn(column);
+        switch (kinds[index]) {
+            case LONG:
+                return (long[]) columns[index];
+            case INT: {
+                int[] ints = (int[]) columns[index];
+                long[] result = new long[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    result[row] = ints[row];
+                return result;
+            }
+            case DOUBLE: {
+                double[] doubles = (double[]) columns[index];
+                long[] result = new long[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    result[row] = (long) doubles[row];
+                return result;
+            }
+            default: {
+                Object[] values = (Object[]) columns[index];
+                long[] result = new long[rowCount];
+                for (int row = 0; row < rowCount; row++)
+                    result[row] = toNumber(index, values[row]).longValue();
+                return result;
+            }
+        }
+    }
+
+    private int checkColumn(int column) throws SQLException {
+        if (column < 1)
+            throw new SQLException(ErrorMessages.get("ResultSet.columnIndexLessThanMin", column));
+        if (column > columnNames.length)
+            throw new SQLException(ErrorMessages.get("ResultSet.columnIndexGreaterThanMax", columnNames.length, column));
+        return column - 1;
+    }
+
+    private Number toNumber(int index, Object value) throws SQLException {
+        if (value == null)
+            return 0;
+        if (value instanceof Number)
+            return (Number) value;
+        throw new SQLException(ErrorMessages.get("ResultSet.columnNotNumeric", columnNames[index], value.getClass().getName()));
+    }
+
+    /*
+     * The following methods take the zero-based index of the column
+     */
+
+    boolean isPrimitive(int index) {
+        return kinds[index] != OBJECT;
+    }
+
+    boolean isNullValue(int index, int row) {
+        if (kinds[index] == OBJECT)
+            return ((Object[]) columns[index])[row] == null;
+        return (nulls[index][row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return the value of a primitive column as a long
+     */
+    long getLong(int index, int row) {
+        switch (kinds[index]) {
+            case INT:
+                return ((int[]) columns[index])[row];
+            case LONG:
+                return ((long[]) columns[index])[row];
+            default:
+                return (long) ((double[]) columns[index])[row];
+        }
+    }
+
+    /**
+     * @return the value of a primitive column as a double
+     */
+    double getDouble(int index, int row) {
+        switch (kinds[index]) {
+            case INT:
+                return ((int[]) columns[index])[row];
+            case LONG:
+                return ((long[]) columns[index])[row];
+            default:
+                return ((double[]) columns[index])[row];
+        }
+    }
+
+    /**
+     * @return the value of the given column, boxed if the column is primitive
+     */
+    Object getValue(int index, int row) {
+        if (isNullValue(index, row))
+            return null;
+        switch (kinds[index]) {
+            case INT:
+                return ((int[]) columns[index])[row];
+            case LONG:
+                return ((long[]) columns[index])[row];
+            case DOUBLE:
+                return ((double[]) columns[index])[row];
+            default:
+                return ((Object[]) columns[index])[row];
+        }
+    }
+
+    ORID getIdentity(int row) {
+        return identities[row];
+    }
+
+    ODocument getPrototype() {
+        return prototype;
+    }
+}
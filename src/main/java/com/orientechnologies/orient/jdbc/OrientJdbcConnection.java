@@ -33,11 +33,15 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.jdbc.common.OrientJdbcConnectionProperties;
 
 /**
  * TODO Add authors name
@@ -55,9 +59,236 @@ public abstract class OrientJdbcConnection implements Connection, ConnectionSpec
 	private boolean readOnly = false;
 	protected boolean autoCommit;
 	private int resultSetHoldability = OrientJdbcResultSet.DEFAULT_HOLDABILITY;
+	private final OrientJdbcStatementCache statementCache;
+	private final int batchTransactionSize;
+	private final boolean massiveInsert;
+	private final int spillThreshold;
+	private final int updateBatchSize;
+	private final String fetchPlan;
+	private final boolean prefetch;
+	private final boolean parallelDecoding;
+	private final long maxResultBytes;
+	//the updatable result sets whose changed rows have not been written or committed yet
+	private final Set<OrientJdbcResultSet> pendingResultSets = new LinkedHashSet<OrientJdbcResultSet>();
+	//the statement whose result set is read by a loader thread, which uses the database
+	//until the result set has been exhausted or closed
+	private OrientJdbcStatement streamingStatement;
+
+	/**
+	 * The default number of rows of a batch committed by the same transaction
+	 */
+	public static final int DEFAULT_BATCH_TRANSACTION_SIZE = 1000;
+
+	/**
+	 * The default number of changed rows an updatable result set writes at once
+	 */
+	public static final int DEFAULT_UPDATE_BATCH_SIZE = 1;
+
+	protected OrientJdbcConnection() {
+		this.statementCache = new OrientJdbcStatementCache(OrientJdbcStatementCache.DEFAULT_SIZE);
+		this.batchTransactionSize = DEFAULT_BATCH_TRANSACTION_SIZE;
+		this.massiveInsert = false;
+		this.spillThreshold = 0;
+		this.updateBatchSize = DEFAULT_UPDATE_BATCH_SIZE;
+		this.fetchPlan = null;
+		this.prefetch = false;
+		this.parallelDecoding = false;
+		this.maxResultBytes = 0;
+	}
+
+	/**
+	 * @param iInfo the connection properties (it can be <code>null</code>)
+	 * @throws SQLException if the value of a property is not valid
+	 */
+	protected OrientJdbcConnection(Properties iInfo) throws SQLException {
+		this.statementCache = new OrientJdbcStatementCache(getIntProperty(iInfo, 
+				OrientJdbcConnectionProperties.Keys.STATEMENT_CACHE_SIZE, OrientJdbcStatementCache.DEFAULT_SIZE));
+		this.batchTransactionSize = getIntProperty(iInfo, 
+				OrientJdbcConnectionProperties.Keys.BATCH_TRANSACTION_SIZE, DEFAULT_BATCH_TRANSACTION_SIZE);
+		this.massiveInsert = iInfo != null && 
+				Boolean.parseBoolean(iInfo.getProperty(OrientJdbcConnectionProperties.Keys.MASSIVE_INSERT));
+		this.spillThreshold = getIntProperty(iInfo, OrientJdbcConnectionProperties.Keys.SPILL_THRESHOLD, 0);
+		this.updateBatchSize = Math.max(1, getIntProperty(iInfo, 
+				OrientJdbcConnectionProperties.Keys.UPDATE_BATCH_SIZE, DEFAULT_UPDATE_BATCH_SIZE));
+		this.fetchPlan = iInfo == null ? null : iInfo.getProperty(OrientJdbcConnectionProperties.Keys.FETCH_PLAN);
+		this.prefetch = iInfo != null && 
+				Boolean.parseBoolean(iInfo.getProperty(OrientJdbcConnectionProperties.Keys.PREFETCH));
+		this.parallelDecoding = iInfo != null && 
+				Boolean.parseBoolean(iInfo.getProperty(OrientJdbcConnectionProperties.Keys.PARALLEL_DECODING));
+		this.maxResultBytes = getLongProperty(iInfo, OrientJdbcConnectionProperties.Keys.MAX_RESULT_BYTES, 0);
+	}
+
+	private static int getIntProperty(Properties iInfo, String key, int defaultValue) throws SQLException {
+		String value = iInfo == null ? null : iInfo.getProperty(key);
+		if (value == null)
+			return defaultValue;
+		int result;
+		try {
+			result = Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			result = -1;
+		}
+		if (result < 0)
+			throw new SQLException(ErrorMessages.get("Connection.badPropertyValue", key, value));
+		return result;
+	}
+
+	private static long getLongProperty(Properties iInfo, String key, long defaultValue) throws SQLException {
+		String value = iInfo == null ? null : iInfo.getProperty(key);
+		if (value == null)
+			return defaultValue;
+		long result;
+		try {
+			result = Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			result = -1;
+		}
+		if (result < 0)
+			throw new SQLException(ErrorMessages.get("Connection.badPropertyValue", key, value));
+		return result;
+	}
 
 	protected abstract ODatabaseDocumentTx getOrientDatabase ();
 
+	OrientJdbcStatementCache getStatementCache() {
+		return statementCache;
+	}
+
+	/**
+	 * @return the number of rows of a batch executed by the same transaction when
+	 * the auto-commit mode is enabled (0 means that each row is committed on its own)
+	 */
+	int getBatchTransactionSize() {
+		return batchTransactionSize;
+	}
+
+	/**
+	 * @return <code>true</code> if the batches are executed with the massive insert intent
+	 * of OrientDB, that is without the record cache and the record hooks
+	 */
+	boolean isMassiveInsert() {
+		return massiveInsert;
+	}
+
+	/**
+	 * @return the number of bytes of serialized rows that a fully loaded result set keeps in
+	 * the heap before writing the following rows to a temporary file (0 means no limit)
+	 */
+	int getSpillThreshold() {
+		return spillThreshold;
+	}
+
+	/**
+	 * @return the number of rows updated, inserted or deleted through an updatable result set
+	 * that are kept in memory and then written to the database by the same transaction
+	 */
+	int getUpdateBatchSize() {
+		return updateBatchSize;
+	}
+
+	/**
+	 * @return the OrientDB fetch plan the statements of this connection apply to their
+	 * queries by default (<code>null</code> means the default fetch plan of OrientDB)
+	 */
+	String getFetchPlan() {
+		return fetchPlan;
+	}
+
+	/**
+	 * @return <code>true</code> if the pages of the forward-only scans are loaded and decoded
+	 * by a background thread while the application reads the previous rows
+	 */
+	boolean isPrefetch() {
+		return prefetch;
+	}
+
+	/**
+	 * @return <code>true</code> if the documents of the fully loaded result sets are decoded
+	 * by a pool of threads while the result sets are built
+	 */
+	boolean isParallelDecoding() {
+		return parallelDecoding;
+	}
+
+	/**
+	 * @return the default maximum number of bytes of the rows of a fully loaded result
+	 * set (0 means no limit)
+	 */
+	long getMaxResultBytes() {
+		return maxResultBytes;
+	}
+
+	/**
+	 * Records that the given result set has changed rows to be written at the next commit.
+	 */
+	void addPendingResultSet(OrientJdbcResultSet resultSet) {
+		pendingResultSets.add(resultSet);
+	}
+
+	/**
+	 * Records that the changed rows of the given result set have been committed or discarded.
+	 */
+	void removePendingResultSet(OrientJdbcResultSet resultSet) {
+		pendingResultSets.remove(resultSet);
+	}
+
+	/**
+	 * Records that the result set of the given statement is read by a loader thread.
+	 */
+	void startStreaming(OrientJdbcStatement statement) {
+		streamingStatement = statement;
+	}
+
+	/**
+	 * Records that the loader thread of the result set of the given statement no longer
+	 * uses the database. It has no effect if the statement is not streaming its result.
+	 */
+	void stopStreaming(OrientJdbcStatement statement) {
+		if (streamingStatement == statement)
+			streamingStatement = null;
+	}
+
+	/**
+	 * @return the statement whose result set is read by a loader thread, or
+	 * <code>null</code> if the database is not used by any loader thread
+	 */
+	OrientJdbcStatement getStreamingStatement() {
+		return streamingStatement;
+	}
+
+	/**
+	 * Writes the rows changed through the updatable result sets of this connection.
+	 */
+	protected void writePendingRows() throws SQLException {
+		//writing the rows of a result set in auto-commit mode removes it from the set
+		for (OrientJdbcResultSet resultSet : new ArrayList<OrientJdbcResultSet>(pendingResultSets))
+			resultSet.writePendingRows();
+	}
+
+	/**
+	 * Tells the updatable result sets of this connection that the rows they have written
+	 * have been committed.
+	 */
+	protected void commitPendingRows() {
+		for (OrientJdbcResultSet resultSet : new ArrayList<OrientJdbcResultSet>(pendingResultSets))
+			resultSet.transactionCommitted();
+	}
+
+	/**
+	 * Drops the rows changed through the updatable result sets of this connection.
+	 */
+	protected void discardPendingRows() {
+		for (OrientJdbcResultSet resultSet : new ArrayList<OrientJdbcResultSet>(pendingResultSets))
+			resultSet.discardPendingRows();
+	}
+
+	/**
+	 * @return the parsed form of the given SQL statement, shared by all the statements of this connection
+	 */
+	OrientJdbcParsedStatement parseStatement(String sql) {
+		return getStatementCache().get(sql);
+	}
+
 	public void clearWarnings() throws SQLException {
 	    throw new SQLFeatureNotSupportedException();
 	}
@@ -85,7 +316,7 @@ public abstract class OrientJdbcConnection implements Connection, ConnectionSpec
 	}
 
 	public boolean isValid(int timeout) throws SQLException {
-		return this.isClosed();
+		return !this.isClosed();
 	}
 
 	public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
@@ -197,14 +428,35 @@ public abstract class OrientJdbcConnection implements Connection, ConnectionSpec
 	public PreparedStatement prepareStatement(String sql) throws SQLException {
 		if (isClosed())
 			throw new SQLException(ErrorMessages.get("Connection.preparedStatementCreationOnClosedObject", sql));
-		return new OrientJdbcPreparedStatement(this, sql, readOnly);
+		return createPreparedStatement(sql, OrientJdbcResultSet.DEFAULT_TYPE, OrientJdbcResultSet.DEFAULT_CONCURRENCY,
+				OrientJdbcResultSet.DEFAULT_HOLDABILITY);
+	}
+
+	protected OrientJdbcPreparedStatement createPreparedStatement(String sql, int resultSetType, int resultSetConcurrency, 
+			int resultSetHoldability) throws SQLException {
+		return new OrientJdbcPreparedStatement(this, sql, readOnly, resultSetType, resultSetConcurrency, resultSetHoldability);
+	}
+
+	/**
+	 * Notifies the connection that one of its prepared statements has been closed by the application.
+	 * 
+	 * @return <code>true</code> if the connection keeps the statement for reuse, so its resources must not be released
+	 */
+	boolean statementClosed(OrientJdbcPreparedStatement statement) {
+		return false;
+	}
+
+	/**
+	 * Notifies the connection that one of its prepared statements is no longer usable.
+	 */
+	void statementErrorOccurred(OrientJdbcPreparedStatement statement, SQLException error) {
 	}
 
 	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
 		if (isClosed())
 			throw new SQLException(ErrorMessages.get("Connection.preparedStatementCreationOnClosedObject", sql));
 		if (autoGeneratedKeys == Statement.NO_GENERATED_KEYS)
-			return new OrientJdbcPreparedStatement(this, sql, readOnly);
+			return prepareStatement(sql);
 		else if (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS)
 			throw new SQLFeatureNotSupportedException();
 		else
@@ -223,13 +475,13 @@ public abstract class OrientJdbcConnection implements Connection, ConnectionSpec
 	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
 		if (isClosed())
 			throw new SQLException(ErrorMessages.get("Connection.preparedStatementCreationOnClosedObject", sql));
-		return new OrientJdbcPreparedStatement(this, sql, readOnly, resultSetType, resultSetConcurrency);
+		return createPreparedStatement(sql, resultSetType, resultSetConcurrency, OrientJdbcResultSet.DEFAULT_HOLDABILITY);
 	}
 
 	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
 		if (isClosed())
 			throw new SQLException(ErrorMessages.get("Connection.preparedStatementCreationOnClosedObject", sql));
-		return new OrientJdbcPreparedStatement(this, sql, readOnly, resultSetType, resultSetConcurrency, resultSetHoldability);
+		return createPreparedStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
 	}
 
 	public void releaseSavepoint(Savepoint savepoint) throws SQLException {
@@ -294,6 +546,8 @@ public abstract class OrientJdbcConnection implements Connection, ConnectionSpec
 	public boolean isWrapperFor(Class<?> iface) throws SQLException {
         if (iface == null)
             throw new SQLException(ErrorMessages.get("Wrapper.wrappedClassIsNull"));
+        if (iface == OrientJdbcStatementCache.class)
+            return true;
         return isWrapperForImpl(iface);
     }
 
@@ -303,6 +557,8 @@ public abstract class OrientJdbcConnection implements Connection, ConnectionSpec
 		try {
 	        if (iface == null)
 	            throw new SQLException(ErrorMessages.get("Wrapper.wrappedClassIsNull"));
+	        if (iface == OrientJdbcStatementCache.class)
+	            return iface.cast(getStatementCache());
 	        return unwrapImpl(iface);
 		} catch (ClassCastException e) {
 			throw new SQLException(ErrorMessages.get("Connection.cannotUnwrap",
@@ -321,7 +577,9 @@ public abstract class OrientJdbcConnection implements Connection, ConnectionSpec
             throw new SQLException(ErrorMessages.get("Connection.commitOnClosedObject"));
         if (autoCommit)
             throw new SQLException(ErrorMessages.get("Connection.commitOnEnabledAutoCommit"));
+        this.writePendingRows();
         this.commitImpl();
+        this.commitPendingRows();
     }
     
     protected abstract void commitImpl ();
@@ -332,6 +590,7 @@ public abstract class OrientJdbcConnection implements Connection, ConnectionSpec
             throw new SQLException(ErrorMessages.get("Connection.rollbackOnClosedObject"));
         if (autoCommit)
             throw new SQLException(ErrorMessages.get("Connection.rollbackOnEnabledAutoCommit"));
+        this.discardPendingRows();
         this.rollabackImpl();
     }
     
@@ -370,10 +629,8 @@ public abstract class OrientJdbcConnection implements Connection, ConnectionSpec
 		if (supportsResultSetType(type)) {
             switch (concurrency) {
                 case ResultSet.CONCUR_READ_ONLY:
-                    return true;
-                //TODO to be implemented!
                 case ResultSet.CONCUR_UPDATABLE:
-                    return false; 
+                    return true;
                 default:
                     throw new SQLException(ErrorMessages.get(
                             "ResultSet.badConcurrency", ResultSet.CONCUR_READ_ONLY + ", " + ResultSet.CONCUR_UPDATABLE, concurrency));
@@ -388,10 +645,8 @@ public abstract class OrientJdbcConnection implements Connection, ConnectionSpec
         switch (type) {
             case ResultSet.TYPE_FORWARD_ONLY:
             case ResultSet.TYPE_SCROLL_INSENSITIVE:
-                return true;
-        	//TODO TO BE IMPLEMENTED
             case ResultSet.TYPE_SCROLL_SENSITIVE:
-            	return false;
+                return true;
             default:
                 throw new SQLException(ErrorMessages.get("ResultSet.badType",ResultSet.TYPE_FORWARD_ONLY + ", " + 
                         ResultSet.TYPE_SCROLL_INSENSITIVE + ", " + ResultSet.TYPE_SCROLL_SENSITIVE, type));
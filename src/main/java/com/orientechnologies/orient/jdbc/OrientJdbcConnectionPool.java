@@ -0,0 +1,289 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+
+import com.orientechnologies.common.log.OLogManager;
+
+/**
+ * Bounded pool of {@link OrientPooledConnection}s wrapping the physical connections opened by the
+ * {@link OrientJdbcDriver}, so every type of connection (document, native graph, object and Tinkerpop
+ * graph) can be pooled.
+ * <p>
+ * At most <code>maxSize</code> connections are borrowed at the same time: further requests
+ * wait up to the acquire timeout. Idle connections are validated before being handed out
+ * and the ones idle for longer than the idle timeout are closed by a background timer,
+ * keeping at least <code>minSize</code> connections open.
+ */
+class OrientJdbcConnectionPool implements ConnectionEventListener {
+
+    private static final String EVICTOR_THREAD_NAME = "OrientDB JDBC connection pool evictor";
+
+    private static final long MIN_EVICTION_PERIOD_MILLIS = 1000;
+
+    private final OrientJdbcDriver driver;
+    private final String url;
+    private final Properties info;
+    private final int minSize;
+    private final int maxSize;
+    private final int maxStatements;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+
+    //one permit for every connection that can be borrowed
+    private final Semaphore permits;
+    //most recently released connections first
+    private final Deque<IdleConnection> idleConnections;
+    private final Timer evictor;
+    private int openConnections;
+    private boolean closed;
+
+    /**
+     * @param iUrl the JDBC URL of the database
+     * @param iInfo the properties used to open the physical connections
+     * @param iMinSize the number of connections kept open also when they are idle
+     * @param iMaxSize the maximum number of connections open at the same time
+     * @param iAcquireTimeoutMillis how long a request for a connection waits when all the connections are
+     *          borrowed (0 means forever)
+     * @param iIdleTimeoutMillis how long a connection can stay idle before being closed (0 means forever)
+     * @param iMaxStatements the size of the prepared statement cache of every connection (0 disables the cache)
+     */
+    OrientJdbcConnectionPool(String iUrl, Properties iInfo, int iMinSize, int iMaxSize, long iAcquireTimeoutMillis,
+            long iIdleTimeoutMillis, int iMaxStatements) throws SQLException {
+        if (iMaxSize < 1 || iMinSize < 0 || iMinSize > iMaxSize)
+            throw new SQLException(ErrorMessages.get("DataSource.badPoolSize", iMinSize, iMaxSize));
+        this.driver = new OrientJdbcDriver();
+        this.url = iUrl;
+        this.info = iInfo;
+        this.minSize = iMinSize;
+        this.maxSize = iMaxSize;
+        this.maxStatements = iMaxStatements;
+        this.acquireTimeoutMillis = iAcquireTimeoutMillis;
+        this.idleTimeoutMillis = iIdleTimeoutMillis;
+        this.permits = new Semaphore(iMaxSize, true);
+        this.idleConnections = new ArrayDeque<IdleConnection>(iMaxSize);
+        this.openConnections = 0;
+        this.closed = false;
+        fill();
+        if (iIdleTimeoutMillis > 0) {
+            long period = Math.max(iIdleTimeoutMillis / 2, MIN_EVICTION_PERIOD_MILLIS);
+            this.evictor = new Timer(EVICTOR_THREAD_NAME, true);
+            this.evictor.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    evictIdleConnections();
+                }
+            }, period, period);
+        } else
+            this.evictor = null;
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new physical connection if no idle one is available.
+     *
+     * @return a logical connection that goes back to the pool when it is closed
+     * @throws SQLTransientConnectionException if no connection becomes available within the acquire timeout
+     * @throws SQLException if the pool has been closed or a new physical connection cannot be opened
+     */
+    Connection acquire() throws SQLException {
+        if (isClosed())
+            throw new SQLException(ErrorMessages.get("DataSource.poolClosed", url));
+        try {
+            if (acquireTimeoutMillis > 0) {
+                if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS))
+                    throw new SQLTransientConnectionException(ErrorMessages.get("DataSource.acquireTimeout", 
+                            maxSize, acquireTimeoutMillis), XOpenSqlStates.UNABLE_TO_ESTABLISH_CONNECTION);
+            } else
+                permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(ErrorMessages.get("DataSource.acquireInterrupted", url), e);
+        }
+        try {
+            OrientPooledConnection pooledConnection = borrowIdleConnection();
+            if (pooledConnection == null)
+                pooledConnection = open();
+            //the database may have been used by a different thread
+            OrientJdbcDatabaseBinding.bind(pooledConnection.getPhysicalConnection().getOrientDatabase());
+            return pooledConnection.getConnection();
+        } catch (SQLException e) {
+            permits.release();
+            throw e;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private OrientPooledConnection borrowIdleConnection() {
+        IdleConnection idle;
+        while ((idle = pollIdleConnection()) != null) {
+            if (idle.connection.isValid())
+                return idle.connection;
+            discard(idle.connection);
+        }
+        return null;
+    }
+
+    private synchronized IdleConnection pollIdleConnection() {
+        return idleConnections.pollFirst();
+    }
+
+    public void connectionClosed(ConnectionEvent event) {
+        release((OrientPooledConnection) event.getSource(), true);
+    }
+
+    public void connectionErrorOccurred(ConnectionEvent event) {
+        release((OrientPooledConnection) event.getSource(), false);
+    }
+
+    /*
+     * Gives a borrowed connection back to the pool, closing it if it is in an unknown state
+     */
+    private void release(OrientPooledConnection pooledConnection, boolean reusable) {
+        boolean discarded = true;
+        synchronized (this) {
+            if (!closed && reusable && pooledConnection.isValid()) {
+                idleConnections.addFirst(new IdleConnection(pooledConnection, System.currentTimeMillis()));
+                discarded = false;
+            }
+        }
+        if (discarded)
+            discard(pooledConnection);
+        permits.release();
+    }
+
+    /**
+     * Closes the idle connections and prevents new connections from being borrowed.
+     * The borrowed connections are closed when they are released.
+     */
+    void close() {
+        IdleConnection[] idle;
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            idle = idleConnections.toArray(new IdleConnection[idleConnections.size()]);
+            idleConnections.clear();
+        }
+        if (evictor != null)
+            evictor.cancel();
+        for (IdleConnection connection : idle)
+            discard(connection.connection);
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized int getOpenConnections() {
+        return openConnections;
+    }
+
+    synchronized int getIdleConnections() {
+        return idleConnections.size();
+    }
+
+    /*
+     * Closes the connections idle for too long, from the least recently used one
+     */
+    void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        IdleConnection evicted;
+        do {
+            synchronized (this) {
+                evicted = idleConnections.peekLast();
+                if (evicted != null && openConnections > minSize && now - evicted.idleSince >= idleTimeoutMillis)
+                    idleConnections.pollLast();
+                else
+                    evicted = null;
+            }
+            if (evicted != null)
+                discard(evicted.connection);
+        } while (evicted != null);
+        fill();
+    }
+
+    /*
+     * Opens idle connections until the pool holds at least minSize connections
+     */
+    private void fill() {
+        try {
+            while (needsConnection()) {
+                OrientPooledConnection connection = open();
+                synchronized (this) {
+                    if (closed) {
+                        discard(connection);
+                        return;
+                    }
+                    idleConnections.addLast(new IdleConnection(connection, System.currentTimeMillis()));
+                }
+            }
+        } catch (SQLException e) {
+            OLogManager.instance().error(this, LogMessages.get("DataSource.poolFillError", url), e);
+        }
+    }
+
+    private synchronized boolean needsConnection() {
+        return !closed && openConnections < minSize;
+    }
+
+    private OrientPooledConnection open() throws SQLException {
+        OrientPooledConnection connection = new OrientPooledConnection((OrientJdbcConnection) driver.connect(url, info), 
+                maxStatements);
+        connection.addConnectionEventListener(this);
+        synchronized (this) {
+            openConnections++;
+        }
+        return connection;
+    }
+
+    private void discard(OrientPooledConnection connection) {
+        synchronized (this) {
+            openConnections--;
+        }
+        try {
+            connection.removeConnectionEventListener(this);
+            connection.close();
+        } catch (Exception e) {
+            OLogManager.instance().warn(this, LogMessages.get("DataSource.connectionCloseError", url), e);
+        }
+    }
+
+    private static class IdleConnection {
+        private final OrientPooledConnection connection;
+        private final long idleSince;
+
+        IdleConnection(OrientPooledConnection iConnection, long iIdleSince) {
+            this.connection = iConnection;
+            this.idleSince = iIdleSince;
+        }
+    }
+}
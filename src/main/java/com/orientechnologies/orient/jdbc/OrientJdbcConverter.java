@@ -0,0 +1,196 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.Array;
+import java.sql.RowId;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Converts the values of a column to the type asked to
+ * {@link OrientJdbcResultSet#getObject(String, Class)}. The result set chooses the converter
+ * of a column the first time the column is read with a type, and keeps it for the
+ * following rows, so every value is converted without looking up its type again.
+ * <p>
+ * The converters hold no state and are shared by all the result sets.
+ */
+abstract class OrientJdbcConverter {
+
+    private static final Map<Class<?>, OrientJdbcConverter> CONVERTERS = new HashMap<Class<?>, OrientJdbcConverter>();
+
+    static {
+        register(new OrientJdbcConverter(Object.class) {
+            @Override
+            Object convert(Object value) {
+                return value;
+            }
+        });
+        register(new OrientJdbcConverter(ORID.class) {
+            @Override
+            Object convert(Object value) {
+                //a RID in its textual form, like #5:3
+                if (value instanceof String)
+                    return new ORecordId((String) value);
+                return ((OIdentifiable) value).getIdentity();
+            }
+        });
+        OrientJdbcConverter rowId = new OrientJdbcConverter(RowId.class) {
+            @Override
+            Object convert(Object value) {
+                return new OrientRowId(((OIdentifiable) value).getIdentity());
+            }
+        };
+        register(rowId);
+        CONVERTERS.put(OrientRowId.class, rowId);
+        register(new OrientJdbcConverter(java.util.Date.class) {
+            @Override
+            Object convert(Object value) {
+                return value instanceof java.util.Date ? value : new java.util.Date(toMillis(value));
+            }
+        });
+        register(new OrientJdbcConverter(java.sql.Date.class) {
+            @Override
+            Object convert(Object value) {
+                return new java.sql.Date(toMillis(value));
+            }
+        });
+        register(new OrientJdbcConverter(Time.class) {
+            @Override
+            Object convert(Object value) {
+                return new Time(toMillis(value));
+            }
+        });
+        register(new OrientJdbcConverter(Timestamp.class) {
+            @Override
+            Object convert(Object value) {
+                return new Timestamp(toMillis(value));
+            }
+        });
+        register(new OrientJdbcConverter(Calendar.class) {
+            @Override
+            Object convert(Object value) {
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTimeInMillis(toMillis(value));
+                return calendar;
+            }
+        });
+        register(new OrientJdbcConverter(Array.class) {
+            @Override
+            Object convert(Object value) {
+                if (value instanceof Collection<?>)
+                    return new OrientJdbcArray(((Collection<?>) value).toArray());
+                if (value instanceof Object[])
+                    return new OrientJdbcArray(((Object[]) value).clone());
+                //an array of primitive values
+                Object[] elements = new Object[java.lang.reflect.Array.getLength(value)];
+                for (int i = 0; i < elements.length; i++)
+                    elements[i] = java.lang.reflect.Array.get(value, i);
+                return new OrientJdbcArray(elements);
+            }
+        });
+        register(new OrientJdbcConverter(Map.class) {
+            @Override
+            Object convert(Object value) {
+                return value instanceof ODocument ? toMap((ODocument) value) : (Map<?, ?>) value;
+            }
+        });
+    }
+
+    private static void register(OrientJdbcConverter converter) {
+        CONVERTERS.put(converter.type, converter);
+    }
+
+    /**
+     * @return the converter of the values to the given type: the types without a converter
+     * of their own are converted by {@link OType#convert(Object, Class)}
+     */
+    static OrientJdbcConverter forType(final Class<?> type) {
+        OrientJdbcConverter converter = CONVERTERS.get(type);
+        if (converter != null)
+            return converter;
+        return new OrientJdbcConverter(type) {
+            @Override
+            Object convert(Object value) {
+                if (type.isInstance(value))
+                    return value;
+                Object converted = OType.convert(value, type);
+                if (!type.isInstance(converted))
+                    throw new ClassCastException(value.getClass().getName() + " cannot be converted to " + type.getName());
+                return converted;
+            }
+        };
+    }
+
+    private static long toMillis(Object value) {
+        if (value instanceof java.util.Date)
+            return ((java.util.Date) value).getTime();
+        if (value instanceof Number)
+            return ((Number) value).longValue();
+        //OType.convert() returns null for the values it cannot convert
+        Object date = OType.convert(value, java.util.Date.class);
+        if (!(date instanceof java.util.Date))
+            throw new ClassCastException(value.getClass().getName() + " cannot be converted to " + java.util.Date.class.getName());
+        return ((java.util.Date) date).getTime();
+    }
+
+    /*
+     * The fields of an embedded document, the embedded documents of which are maps too
+     */
+    private static Map<String, Object> toMap(ODocument document) {
+        String[] fieldNames = document.fieldNames();
+        Map<String, Object> map = new LinkedHashMap<String, Object>(fieldNames.length * 2);
+        for (String fieldName : fieldNames) {
+            Object value = document.field(fieldName);
+            if (value instanceof ODocument && ((ODocument) value).isEmbedded())
+                value = toMap((ODocument) value);
+            map.put(fieldName, value);
+        }
+        return map;
+    }
+
+    private final Class<?> type;
+
+    private OrientJdbcConverter(Class<?> iType) {
+        this.type = iType;
+    }
+
+    /**
+     * @return the type the values are converted to
+     */
+    Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Converts a value that is not <code>null</code>.
+     *
+     * @throws ClassCastException if the value cannot be converted
+     */
+    abstract Object convert(Object value);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.SQLException;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Source of the rows of a forward-only result set that is not fully loaded in memory.
+ */
+interface OrientJdbcCursor {
+
+    /**
+     * @return the next document or <code>null</code> if the result has been entirely read
+     * @throws SQLException if the documents cannot be loaded
+     */
+    ODocument next() throws SQLException;
+
+    /**
+     * Releases the resources held by the cursor. Calling this method on a closed cursor has no effect.
+     */
+    void close();
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+
+/**
+ * Binds the databases of the driver to the thread-local of OrientDB.
+ * <p>
+ * The result sets only check the database bound to the calling thread, which is read
+ * from the thread itself, so that the threads reading different connections never
+ * share any state. The statements always bind their database before running a
+ * command, as OrientDB itself or the application may have bound a different database
+ * in the meantime.
+ */
+final class OrientJdbcDatabaseBinding {
+
+    private OrientJdbcDatabaseBinding() {
+    }
+
+    /**
+     * Binds the given database to the calling thread.
+     */
+    static void bind(ODatabaseRecord iDatabase) {
+        ODatabaseRecordThreadLocal.INSTANCE.set(iDatabase);
+    }
+
+    /**
+     * Removes the database bound to the calling thread, which is a thread of a pool that
+     * must not keep a database of the driver once its task has ended.
+     */
+    static void unbind() {
+        ODatabaseRecordThreadLocal.INSTANCE.remove();
+    }
+
+    /**
+     * Binds the given database to the calling thread, unless it is already bound to it.
+     */
+    static void ensureBound(ODatabaseRecord iDatabase) {
+        if (ODatabaseRecordThreadLocal.INSTANCE.getIfDefined() != iDatabase)
+            ODatabaseRecordThreadLocal.INSTANCE.set(iDatabase);
+    }
+}
@@ -84,7 +84,8 @@ public class OrientJdbcDatabaseMetaData implements DatabaseMetaData {
     }
 
     public boolean deletesAreDetected(int type) throws SQLException {
-        return false;
+        //a deleted row stays in the result set and rowDeleted() tells it
+        return true;
     }
 
     public boolean doesMaxRowSizeIncludeBlobs() throws SQLException {
@@ -516,8 +517,8 @@ public class OrientJdbcDatabaseMetaData implements DatabaseMetaData {
     }
 
     public boolean othersUpdatesAreVisible(int type) throws SQLException {
-        //TODO to be further investigated
-        return false;
+        //the rows of a scroll-sensitive result set are loaded again as the cursor moves
+        return type == ResultSet.TYPE_SCROLL_SENSITIVE;
     }
 
     public boolean ownDeletesAreVisible(int type) throws SQLException {
@@ -529,7 +530,8 @@ public class OrientJdbcDatabaseMetaData implements DatabaseMetaData {
     }
 
     public boolean ownUpdatesAreVisible(int type) throws SQLException {
-        return false;
+        //the documents of an updatable result set are changed in place
+        return true;
     }
 
     public boolean storesLowerCaseIdentifiers() throws SQLException {
@@ -845,7 +847,7 @@ public class OrientJdbcDatabaseMetaData implements DatabaseMetaData {
     }
 
     public boolean updatesAreDetected(int type) throws SQLException {
-        return false;
+        return true;
     }
 
     public boolean usesLocalFilePerTable() throws SQLException {
@@ -67,17 +67,18 @@ public class OrientJdbcDriver implements java.sql.Driver {
 	        String password = info.getProperty(OrientJdbcConnectionProperties.Keys.PASSWORD);
 	        String connectionType = info.getProperty(OrientJdbcConnectionProperties.Keys.CONNECTION_TYPE);
 	        try {
+	            OrientJdbcConnection connection;
     	        if (null == connectionType)
     	            //the default type of database is ODocument
-    	            return new OrientDocumentDatabaseConnection(dbUrl, username, password, info);
+    	            connection = new OrientDocumentDatabaseConnection(dbUrl, username, password, info);
     	        else if (OrientJdbcConnectionProperties.Values.DOCUMENT_DB.equals(connectionType))
-    	            return new OrientDocumentDatabaseConnection(dbUrl, username, password, info);
+    	            connection = new OrientDocumentDatabaseConnection(dbUrl, username, password, info);
     	        else if (OrientJdbcConnectionProperties.Values.NATIVE_GRAPH_DB.equals(connectionType))
-    	            return new OrientNativeGraphConnection(dbUrl, username, password, info);
+    	            connection = new OrientNativeGraphConnection(dbUrl, username, password, info);
     	        else if (OrientJdbcConnectionProperties.Values.OBJECT_DB.equals(connectionType))
-    	            return new OrientObjectDatabaseConnection(dbUrl, username, password, info);
+    	            connection = new OrientObjectDatabaseConnection(dbUrl, username, password, info);
     	        else if (OrientJdbcConnectionProperties.Values.TINKERPOP_GRAPH_DB.equals(connectionType))
-    	            return new OrientTinkerpopGraphConnection(dbUrl, username, password, info);
+    	            connection = new OrientTinkerpopGraphConnection(dbUrl, username, password, info);
     	        else {
     	            logger.error(this, LogMessages.get("Connection.wrongType", OrientJdbcConnectionProperties.Keys.CONNECTION_TYPE,
                         connectionType, OrientJdbcConnectionProperties.Values.DOCUMENT_DB + ", " + 
@@ -90,6 +91,9 @@ public class OrientJdbcDriver implements java.sql.Driver {
         	                OrientJdbcConnectionProperties.Values.OBJECT_DB + */", or " + 
         	                OrientJdbcConnectionProperties.Values.TINKERPOP_GRAPH_DB));
     	        }
+	            //opening the database has bound it to the calling thread
+	            OrientJdbcDatabaseBinding.bind(connection.getOrientDatabase());
+	            return connection;
 	        } catch (Exception e){
 	        	logger.error(this, LogMessages.get("Driver.errorInConnectionCreation"), e);
 	            if (e instanceof SQLException)
@@ -0,0 +1,188 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.SQLException;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+
+/**
+ * Connection handed out by an {@link OrientPooledConnection}: it runs every operation on the
+ * physical {@link OrientJdbcConnection} and, when it is closed, rolls back any open transaction
+ * and notifies the pooled connection instead of closing the database.
+ * <p>
+ * The flags of the JDBC connection (auto-commit, read only) belong to the logical
+ * connection, so the next user of the physical connection starts from the default values.
+ */
+class OrientJdbcLogicalConnection extends OrientJdbcConnection {
+
+    private final OrientJdbcConnection physicalConnection;
+    private final OrientPooledConnection pooledConnection;
+    private volatile boolean closed;
+
+    OrientJdbcLogicalConnection(OrientJdbcConnection iPhysicalConnection, OrientPooledConnection iPooledConnection) {
+        this.physicalConnection = iPhysicalConnection;
+        this.pooledConnection = iPooledConnection;
+        this.closed = false;
+    }
+
+    /* (non-Javadoc)
+     * @see com.orientechnologies.orient.jdbc.OrientJdbcConnection#getOrientDatabase()
+     */
+    @Override
+    protected ODatabaseDocumentTx getOrientDatabase() {
+        return physicalConnection.getOrientDatabase();
+    }
+
+    @Override
+    OrientJdbcStatementCache getStatementCache() {
+        return physicalConnection.getStatementCache();
+    }
+
+    @Override
+    int getBatchTransactionSize() {
+        return physicalConnection.getBatchTransactionSize();
+    }
+
+    @Override
+    boolean isMassiveInsert() {
+        return physicalConnection.isMassiveInsert();
+    }
+
+    @Override
+    int getSpillThreshold() {
+        return physicalConnection.getSpillThreshold();
+    }
+
+    @Override
+    int getUpdateBatchSize() {
+        return physicalConnection.getUpdateBatchSize();
+    }
+
+    @Override
+    String getFetchPlan() {
+        return physicalConnection.getFetchPlan();
+    }
+
+    @Override
+    boolean isPrefetch() {
+        return physicalConnection.isPrefetch();
+    }
+
+    @Override
+    boolean isParallelDecoding() {
+        return physicalConnection.isParallelDecoding();
+    }
+
+    @Override
+    long getMaxResultBytes() {
+        return physicalConnection.getMaxResultBytes();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || physicalConnection.isClosed();
+    }
+
+    /**
+     * Closes this connection without giving the physical connection back: it is called when the
+     * pooled connection hands out a new logical connection or is closed.
+     */
+    void invalidate() {
+        closed = true;
+    }
+
+    @Override
+    protected OrientJdbcPreparedStatement createPreparedStatement(String sql, int resultSetType, int resultSetConcurrency,
+            int resultSetHoldability) throws SQLException {
+        OrientJdbcPreparedStatement statement = pooledConnection.takeStatement(sql, resultSetType, resultSetConcurrency,
+                resultSetHoldability, isReadOnly());
+        if (statement == null)
+            return super.createPreparedStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+        statement.reuse(this);
+        return statement;
+    }
+
+    @Override
+    boolean statementClosed(OrientJdbcPreparedStatement statement) {
+        return pooledConnection.statementClosed(statement);
+    }
+
+    @Override
+    void statementErrorOccurred(OrientJdbcPreparedStatement statement, SQLException error) {
+        pooledConnection.statementErrorOccurred(statement, error);
+    }
+
+    /* (non-Javadoc)
+     * @see com.orientechnologies.orient.jdbc.OrientJdbcConnection#isWrapperForImpl(java.lang.Class)
+     */
+    @Override
+    protected boolean isWrapperForImpl(Class<?> iface) {
+        return physicalConnection.isWrapperForImpl(iface);
+    }
+
+    /* (non-Javadoc)
+     * @see com.orientechnologies.orient.jdbc.OrientJdbcConnection#unwrapImpl(java.lang.Class)
+     */
+    @Override
+    protected <T> T unwrapImpl(Class<T> iface) throws SQLException, ClassCastException {
+        return physicalConnection.unwrapImpl(iface);
+    }
+
+    /* (non-Javadoc)
+     * @see com.orientechnologies.orient.jdbc.OrientJdbcConnection#commitImpl()
+     */
+    @Override
+    protected void commitImpl() {
+        physicalConnection.commitImpl();
+    }
+
+    /* (non-Javadoc)
+     * @see com.orientechnologies.orient.jdbc.OrientJdbcConnection#configTransaction()
+     */
+    @Override
+    protected void configTransaction() {
+        physicalConnection.configTransaction();
+    }
+
+    /* (non-Javadoc)
+     * @see com.orientechnologies.orient.jdbc.OrientJdbcConnection#rollabackImpl()
+     */
+    @Override
+    protected void rollabackImpl() {
+        physicalConnection.rollabackImpl();
+    }
+
+    /* (non-Javadoc)
+     * @see com.orientechnologies.orient.jdbc.OrientJdbcConnection#closeImpl()
+     */
+    @Override
+    protected void closeImpl() throws SQLException {
+        if (closed)
+            return;
+        closed = true;
+        SQLException error = null;
+        try {
+            //the work left uncommitted by this user must not leak to the next one
+            if (!physicalConnection.isClosed() && getOrientDatabase().getTransaction().isActive())
+                physicalConnection.rollabackImpl();
+        } catch (RuntimeException e) {
+            error = new SQLException(ErrorMessages.get("Connection.rollbackOnClose"), e);
+        }
+        pooledConnection.logicalConnectionClosed(this, error);
+    }
+}
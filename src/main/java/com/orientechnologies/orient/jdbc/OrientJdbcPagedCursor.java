@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.exception.OQueryParsingException;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+/**
+ * Forward-only source of documents that loads the result one page at a time.
+ * <p>
+ * Every page is read by running the same {@link OSQLSynchQuery} again with a limit
+ * equal to the page size: OrientDB remembers the RID following the last record of
+ * the previous page and starts the next scan from there (keyset pagination), so the
+ * storage never reads the same record twice and only the current page is kept in
+ * memory. This only works for plain scans of a class or cluster: a projection, a
+ * filter that can be resolved by an index, a sort or an explicit LIMIT/SKIP would
+ * make the RID of the last record useless as a resume point.
+ */
+class OrientJdbcPagedCursor implements OrientJdbcCursor {
+
+    private static final Pattern PLAIN_SCAN = Pattern.compile(
+            "\\s*SELECT\\s+(\\*\\s+)?FROM\\s+[\\w:]+\\s*", Pattern.CASE_INSENSITIVE);
+
+    private final ODatabaseDocumentTx database;
+    private final OSQLSynchQuery<ODocument> query;
+    private final int pageSize;
+    private final int maxRows;
+
+    private List<ODocument> page;
+    private int pageIndex;
+    private int loadedRows;
+    private boolean lastPage;
+
+    /**
+     * @param iDatabase the database the query is executed against
+     * @param sql the text of the SQL query, see {@link #supports(String)}
+     * @param pageSize the number of documents loaded by every query
+     * @param maxRows the maximum number of documents to be loaded (0 means no limit)
+     * @param fetchPlan the fetch plan of the query (<code>null</code> for the default one)
+     */
+    OrientJdbcPagedCursor(ODatabaseDocumentTx iDatabase, String sql, int pageSize, int maxRows, String fetchPlan) {
+        this.database = iDatabase;
+        this.query = new OSQLSynchQuery<ODocument>(sql);
+        this.query.setFetchPlan(fetchPlan);
+        this.pageSize = pageSize;
+        this.maxRows = maxRows;
+        this.page = Collections.emptyList();
+        this.pageIndex = 0;
+        this.loadedRows = 0;
+        this.lastPage = false;
+    }
+
+    /**
+     * Tells if the result of the given query can be read page by page.
+     */
+    static boolean supports(String sql) {
+        return PLAIN_SCAN.matcher(sql).matches();
+    }
+
+    public ODocument next() throws SQLException {
+        if (pageIndex == page.size()) {
+            if (lastPage)
+                return null;
+            loadNextPage();
+            if (page.isEmpty())
+                return null;
+        }
+        return page.get(pageIndex++);
+    }
+
+    private void loadNextPage() throws SQLException {
+        int limit = pageSize;
+        if (maxRows != OrientJdbcStatement.NO_LIMIT)
+            limit = Math.min(pageSize, maxRows - loadedRows);
+        if (limit <= 0) {
+            page = Collections.emptyList();
+            lastPage = true;
+            return;
+        }
+        query.setLimit(limit);
+        OrientJdbcDatabaseBinding.bind(database);
+        try {
+            //the query resumes from the RID following the last record of the previous page
+            page = database.query(query);
+        } catch (OQueryParsingException e) {
+            throw new SQLSyntaxErrorException(ErrorMessages.get("Statement.syntaxError", query.getText()), e);
+        }
+        pageIndex = 0;
+        loadedRows += page.size();
+        //a short page means that the scan has reached the end of the class
+        if (page.size() < limit)
+            lastPage = true;
+    }
+
+    public void close() {
+        page = Collections.emptyList();
+        pageIndex = 0;
+        lastPage = true;
+    }
+}
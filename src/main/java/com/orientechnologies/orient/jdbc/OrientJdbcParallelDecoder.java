@@ -0,0 +1,112 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Decodes the fields of the documents of a fully loaded result on a pool of threads
+ * shared by all the connections, one slice of the result per thread, so that the
+ * getters of the result set only read values that have already been decoded.
+ * <p>
+ * Decoding a document only reads the schema of the database, the linked records are
+ * not loaded. The results too small to be worth splitting are left to the lazy
+ * decoding of OrientDB.
+ */
+final class OrientJdbcParallelDecoder {
+
+    /**
+     * The minimum number of documents decoded by the same thread
+     */
+    static final int MIN_ROWS_PER_TASK = 256;
+
+    private static final String DECODER_THREAD_NAME = "OrientDB JDBC decoder";
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static ExecutorService pool;
+
+    private OrientJdbcParallelDecoder() {
+    }
+
+    private static synchronized ExecutorService getPool() {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+                public Thread newThread(Runnable task) {
+                    Thread thread = new Thread(task, DECODER_THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return pool;
+    }
+
+    /**
+     * Decodes the fields of the given documents, returning once all of them have been decoded.
+     *
+     * @param database the database the documents have been loaded from
+     * @param documents the documents of the result
+     * @throws SQLException if a document cannot be decoded or the calling thread has been interrupted
+     */
+    static void decode(final ODatabaseRecord database, final List<ODocument> documents) throws SQLException {
+        int tasks = Math.min(THREADS, documents.size() / MIN_ROWS_PER_TASK);
+        if (tasks <= 1)
+            return;
+        int slice = (documents.size() + tasks - 1) / tasks;
+        List<Future<?>> futures = new ArrayList<Future<?>>(tasks);
+        ExecutorService executor = getPool();
+        for (int start = 0; start < documents.size(); start += slice) {
+            final int from = start;
+            final int to = Math.min(documents.size(), start + slice);
+            futures.add(executor.submit(new Runnable() {
+                public void run() {
+                    OrientJdbcDatabaseBinding.bind(database);
+                    try {
+                        for (int i = from; i < to; i++)
+                            documents.get(i).fieldNames();
+                    } finally {
+                        //the pooled thread would otherwise keep the database after it is closed
+                        OrientJdbcDatabaseBinding.unbind();
+                    }
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            throw new SQLException(ErrorMessages.get("ResultSet.decodeFailed"), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(ErrorMessages.get("ResultSet.decodeInterrupted"), e);
+        } finally {
+            for (Future<?> future : futures)
+                future.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.orientechnologies.orient.core.sql.OCommandExecutorSQLSelect;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+
+/**
+ * What the driver learns about a SQL statement before sending it to OrientDB. The
+ * instances are shared by all the statements of a connection that run the same SQL text
+ * (see {@link OrientJdbcStatementCache}).
+ */
+class OrientJdbcParsedStatement {
+
+    //the projection and the target of a query
+    private static final Pattern SELECT = Pattern.compile(
+            "\\s*SELECT\\s+(.*?)\\s*\\bFROM\\s+(\\S+).*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern IDENTIFIER = Pattern.compile("\\w+");
+    private static final Pattern ALIAS = Pattern.compile(".*\\s+AS\\s+(\\w+)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final String sql;
+    private final boolean query;
+    private final boolean pagedScan;
+    private final int parameterCount;
+    private final String projection;
+    private final String targetClass;
+    private final String[] projectedColumns;
+    private OCommandSQL command;
+
+    OrientJdbcParsedStatement(String iSql) {
+        this.sql = iSql;
+        this.query = iSql.startsWith(OCommandExecutorSQLSelect.KEYWORD_SELECT);
+        this.pagedScan = OrientJdbcPagedCursor.supports(iSql);
+        this.parameterCount = countParameters(iSql);
+        Matcher select = query ? SELECT.matcher(iSql) : null;
+        if (select != null && select.matches()) {
+            String text = select.group(1);
+            this.projection = "*".equals(text) ? "" : text;
+            this.targetClass = IDENTIFIER.matcher(select.group(2)).matches() ? select.group(2) : null;
+            this.projectedColumns = this.projection.length() == 0 ? null : parseColumns(this.projection);
+        } else {
+            this.projection = null;
+            this.targetClass = null;
+            this.projectedColumns = null;
+        }
+    }
+
+    /*
+     * Returns the names of the columns of a projection made of field names, with or without
+     * an alias, or null if any of its items is an expression whose name is chosen by OrientDB
+     */
+    private static String[] parseColumns(String projection) {
+        List<String> columns = new ArrayList<String>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i <= projection.length(); i++) {
+            char c = i < projection.length() ? projection.charAt(i) : ',';
+            if (c == '(' || c == '[')
+                depth++;
+            else if (c == ')' || c == ']')
+                depth--;
+            else if (c == ',' && depth == 0) {
+                String item = projection.substring(start, i).trim();
+                Matcher alias = ALIAS.matcher(item);
+                if (alias.matches())
+                    columns.add(alias.group(1));
+                else if (IDENTIFIER.matcher(item).matches())
+                    columns.add(item);
+                else
+                    return null;
+                start = i + 1;
+            }
+        }
+        return depth == 0 ? columns.toArray(new String[columns.size()]) : null;
+    }
+
+    /*
+     * Counts the positional placeholders, skipping the ones inside string literals
+     */
+    private static int countParameters(String sql) {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == '\\')
+                    i++;
+                else if (c == quote)
+                    quote = 0;
+            } else if (c == '\'' || c == '"')
+                quote = c;
+            else if (c == '?')
+                count++;
+        }
+        return count;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return <code>true</code> if the statement is a SELECT
+     */
+    boolean isQuery() {
+        return query;
+    }
+
+    /**
+     * @return the number of <code>?</code> placeholders of the statement
+     */
+    int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * @return <code>true</code> if the result of the statement can be read page by page
+     * (see {@link OrientJdbcPagedCursor#supports(String)})
+     */
+    boolean isPagedScan() {
+        return pagedScan;
+    }
+
+    /**
+     * @return the text of the projection of a query (empty if the query reads whole
+     * documents), or <code>null</code> if the statement is not a query that can be parsed
+     */
+    String getProjection() {
+        return projection;
+    }
+
+    /**
+     * @return the name of the class read by a query, or <code>null</code> if the query
+     * reads a cluster, a list of records or the result of a sub-query
+     */
+    String getTargetClass() {
+        return targetClass;
+    }
+
+    /**
+     * @return the names of the columns of the projection of a query, or <code>null</code>
+     * if they can only be told from the documents of the result
+     */
+    String[] getProjectedColumns() {
+        return projectedColumns;
+    }
+
+    /**
+     * Returns the command request of the statement. The request holds no state between two
+     * executions, so it is built once and reused; queries need a new {@link com.orientechnologies.orient.core.sql.query.OSQLSynchQuery}
+     * for every execution instead, because it keeps the records of its last result.
+     */
+    synchronized OCommandSQL getCommand() {
+        if (command == null)
+            command = new OCommandSQL(sql);
+        return command;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Forward-only source of documents that reads another cursor ahead of the consumer.
+ * <p>
+ * A dedicated loader thread takes the documents from the source cursor, decodes their
+ * fields and pushes them into a bounded buffer, so that the next page of a scan is
+ * loaded and decoded while the application processes the current rows. When the buffer
+ * is full the loader blocks until the result set consumes a row. Closing the cursor
+ * stops the loader and waits for it, so that the database can be used again as soon as
+ * the result set has been closed; until then it must not be used by other statements,
+ * whose executions the connection makes fail.
+ */
+class OrientJdbcPrefetchingCursor implements OrientJdbcCursor, Runnable {
+
+    /*
+     * Marker put into the buffer by the loader thread once the source is exhausted
+     */
+    private static final Object END_OF_RESULT = new Object();
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private static final String LOADER_THREAD_NAME = "OrientDB JDBC prefetching cursor";
+
+    private final ODatabaseDocumentTx database;
+    private final OrientJdbcCursor source;
+    private final String sql;
+    private final BlockingQueue<Object> buffer;
+
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private boolean exhausted;
+    private Thread loader;
+
+    /**
+     * @param iDatabase the database the source cursor reads from
+     * @param iSource the cursor read by the loader thread
+     * @param sql the text of the SQL query, for the error messages
+     * @param bufferSize the maximum number of decoded documents waiting to be consumed
+     */
+    OrientJdbcPrefetchingCursor(ODatabaseDocumentTx iDatabase, OrientJdbcCursor iSource, String sql, int bufferSize) {
+        this.database = iDatabase;
+        this.source = iSource;
+        this.sql = sql;
+        this.buffer = new ArrayBlockingQueue<Object>(bufferSize);
+        this.exhausted = false;
+        this.closed = false;
+    }
+
+    /**
+     * Starts the loader thread.
+     */
+    void open() {
+        loader = new Thread(this, LOADER_THREAD_NAME);
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public void run() {
+        OrientJdbcDatabaseBinding.bind(database);
+        try {
+            ODocument document;
+            while (!closed && (document = source.next()) != null) {
+                //the fields are decoded here rather than by the consumer
+                document.fieldNames();
+                if (!enqueue(document))
+                    break;
+            }
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            source.close();
+            enqueue(END_OF_RESULT);
+        }
+    }
+
+    private boolean enqueue(Object item) {
+        try {
+            while (!closed) {
+                if (buffer.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                    return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Returns the next document, waiting for the loader thread if the buffer is empty.
+     *
+     * @return the next document or <code>null</code> if the result has been entirely read
+     * @throws SQLException if the source failed or the calling thread has been interrupted
+     */
+    public ODocument next() throws SQLException {
+        if (exhausted || closed)
+            return null;
+        Object item;
+        try {
+            item = buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(ErrorMessages.get("ResultSet.streamingInterrupted", sql), e);
+        }
+        if (item == END_OF_RESULT) {
+            exhausted = true;
+            if (failure instanceof SQLException)
+                throw (SQLException) failure;
+            if (failure != null)
+                throw new SQLException(ErrorMessages.get("ResultSet.streamingQueryFailed", sql), failure);
+            return null;
+        }
+        return (ODocument) item;
+    }
+
+    /**
+     * Stops the loader thread, waiting for the page it is loading, and releases the
+     * buffered documents.
+     */
+    public void close() {
+        if (!closed) {
+            closed = true;
+            buffer.clear();
+            if (loader != null && loader != Thread.currentThread()) {
+                try {
+                    loader.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.orientechnologies.orient.jdbc;
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.net.URL;
 import java.sql.Array;
 import java.sql.BatchUpdateException;
@@ -38,18 +39,17 @@ import java.sql.SQLSyntaxErrorException;
 import java.sql.SQLXML;
 import java.sql.Time;
 import java.sql.Timestamp;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.sql.Types;
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
-import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.command.OCommandRequestText;
 import com.orientechnologies.orient.core.exception.OQueryParsingException;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.query.OQuery;
 import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerJSON;
-import com.orientechnologies.orient.core.sql.OCommandExecutorSQLSelect;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 
@@ -61,8 +61,16 @@ import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements PreparedStatement {
 
 	private static final int MESSAGE_FORMAT_CHOICE_INDEX = 1;
-	private List<String> params;
+	//the bound parameters, one slot for every placeholder, as they are passed to OrientDB
+	private Object[] params;
+	//the generation in which every slot has been bound: clearing the parameters just starts
+	//a new generation, so the slots bound in the previous ones are no longer bound
+	private int[] paramGenerations;
+	private int generation;
+	//the number of slots bound in the current generation
+	private int boundParams;
 	private List<Object[]> batchParams;
+	private String sql;
 
 	public OrientJdbcPreparedStatement(OrientJdbcConnection iConnection, String sql, boolean readOnly) throws SQLException {
 		super(iConnection,readOnly);
@@ -85,32 +93,84 @@ public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements
 	private void init(String sql) throws SQLException {
 	    if ("".equals(sql))
             throw new SQLException(ErrorMessages.get("PreparedStatement.compileEmptyString"));
-        if (sql.startsWith(OCommandExecutorSQLSelect.KEYWORD_SELECT))
+        this.sql = sql;
+        OrientJdbcParsedStatement parsed = connection.parseStatement(sql);
+        if (parsed.isQuery()) {
 		    statement = new OSQLSynchQuery<ODocument>(sql);
-		else
-		    statement = new OCommandSQL(sql);
-        params = new LinkedList<String>();
-        batchParams = new LinkedList<Object[]>();
+		    parsedQuery = parsed;
+        } else
+		    statement = parsed.getCommand();
+        params = new Object[parsed.getParameterCount()];
+        paramGenerations = new int[params.length];
+        //the slots start at generation 0, that is unbound
+        generation = 1;
+        boundParams = 0;
+        batchParams = new ArrayList<Object[]>();
+        //prepared statements are poolable by default (see Statement#isPoolable())
+        poolable = true;
+	}
+
+	String getSql() {
+	    return sql;
+	}
+
+	/**
+	 * Makes a statement kept by the statement cache of a pooled connection available
+	 * again, as if it had just been prepared by the given connection.
+	 */
+	void reuse(OrientJdbcConnection iConnection) {
+	    connection = iConnection;
+	    clearParameterSlots();
+	    batchParams.clear();
+	    batches.clear();
+	    updateCount = NO_UPDATE_RESULT;
+	    preferredResultSetFetchDirection = OrientJdbcResultSet.DEFAULT_FETCH_DIRECTION;
+	    preferredResultSetMaxRows = DEFAULT_MAX_ROWS;
+	    preferredResultSetFetchSize = OrientJdbcResultSet.DEFAULT_FETCH_SIZE;
+	    columnar = false;
+	    fetchPlan = iConnection.getFetchPlan();
+	    maxResultBytes = iConnection.getMaxResultBytes();
+	    closed = false;
 	}
 
 	@SuppressWarnings("unchecked")
     private void executeOQuery () throws SQLException {
 	    if (closed)
             throw new SQLException(ErrorMessages.get("Statement.executeQueryOnClosedObject",MESSAGE_FORMAT_CHOICE_INDEX, statement.toString()));
+	    checkDatabaseAvailable(sql);
 	    updateCount = NO_UPDATE_RESULT;
 	    if (statement instanceof OQuery) {
+	        applyMaxRows(statement);
+	        applyFetchPlan((OQuery<?>) statement);
+	        if (isStreamingEnabled()) {
+	            //the loader thread reads the parameters later, so they must not change meanwhile
+	            resultSet = executeStreamingQuery(((OCommandRequestText) statement).getText(), 
+	                    boundParameters().clone());
+	            return;
+	        }
             try {
-                List<ODocument> documents = database.query((OQuery<ODocument>) statement,params.toArray(new Object[params.size()]));
-                updateCount = NO_UPDATE_RESULT;
-                if (preferredResultSetMaxRows == NO_LIMIT)
-                    resultSet = new OrientJdbcResultSet(this, documents, resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
-                else if (documents.size() > preferredResultSetMaxRows)
-                    resultSet = new OrientJdbcResultSet(this, documents.subList(0, preferredResultSetMaxRows), resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
+                //the query object is reused: make it start from the first record
+                //instead of resuming after the last one returned by the previous run
+                if (statement instanceof OSQLSynchQuery)
+                    ((OSQLSynchQuery<ODocument>) statement).resetPagination();
+                if (isLimitEnabled()) {
+                    resultSet = executeLimitedQuery(((OCommandRequestText) statement).getText(), boundParameters());
+                    return;
+                }
+                List<ODocument> documents;
+                if (isListingEnabled())
+                    documents = loadListedQuery(((OCommandRequestText) statement).getText(), boundParameters());
                 else
-                    resultSet = new OrientJdbcResultSet(this, documents, resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
+                    documents = database.query((OQuery<ODocument>) statement, boundParameters());
+                updateCount = NO_UPDATE_RESULT;
+                resultSet = new OrientJdbcResultSet(this, truncateToMaxRows(documents), resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
     
             } catch (OQueryParsingException e) {
-                throw new SQLSyntaxErrorException("Error on parsing the query", e);
+                SQLSyntaxErrorException error = new SQLSyntaxErrorException("Error on parsing the query", e);
+                //a statement that cannot be parsed must not be reused
+                poolable = false;
+                connection.statementErrorOccurred(this, error);
+                throw error;
             }
 	    } else
 	        throw new SQLException(ErrorMessages.get("Statement.executeUpdateAsQuery", statement.toString()));
@@ -118,11 +178,24 @@ public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements
 
 	@Override
 	public void close() throws SQLException {
-		super.close();
-		if (!closed) {
-			this.batchParams = null;
-			this.params = null;
+		if (closed)
+			return;
+		if (resultSet != null) {
+			resultSet.close();
+			resultSet = null;
 		}
+		closed = true;
+		//the connection may keep the statement to be prepared again
+		if (!connection.statementClosed(this))
+			closeImpl();
+	}
+
+	@Override
+	protected void closeImpl() throws SQLException {
+		super.closeImpl();
+		this.batchParams = null;
+		this.params = null;
+		this.paramGenerations = null;
 	}
 
 	public ResultSet executeQuery() throws SQLException {
@@ -133,61 +206,100 @@ public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements
 	public int executeUpdate() throws SQLException {
         if (closed)
             throw new SQLException(ErrorMessages.get("Statement.executeStatementOnClosedObject", MESSAGE_FORMAT_CHOICE_INDEX, statement.toString()));
-	    super.executeUpdate(params.toArray(new Object[params.size()]));
+	    super.executeUpdate(boundParameters());
 		return updateCount;
 	}
 	
-	private void setParameter (int parameterIndex, String value, String className) throws SQLException {
+	/*
+	 * Binds the value as it is: OrientDB handles the Java types of the record fields
+	 * natively, so converting the value to a string would only make it parse it back.
+	 */
+	private void setParameter (int parameterIndex, Object value, String className) throws SQLException {
         if (closed)
             throw new SQLException(ErrorMessages.get("PreparedStatement.setParameterOnClosedObject", parameterIndex,className));
 	    if (parameterIndex < 1)
 	        throw new SQLException (ErrorMessages.get("PreparedStatement.parameterIndexLessThanMin"));
-        if (parameterIndex > params.size()) {
-            while (parameterIndex < params.size())
-                params.add(null);
-            params.add(value);
-        } else {
-            int index = parameterIndex - 1; 
-            params.remove(index);
-            params.add(index, value);
-        }
+	    int slot = parameterIndex - 1;
+	    //more parameters than the placeholders found in the SQL text: let OrientDB complain
+	    if (slot >= params.length) {
+	        params = Arrays.copyOf(params, parameterIndex);
+	        paramGenerations = Arrays.copyOf(paramGenerations, parameterIndex);
+	    }
+	    params[slot] = value;
+	    if (paramGenerations[slot] != generation) {
+	        paramGenerations[slot] = generation;
+	        boundParams++;
+	    }
+	}
+
+	/*
+	 * Returns the bound parameters in the order of the placeholders, without copying them. 
+	 * The parameters that have not been bound are null.
+	 */
+	private Object[] boundParameters() {
+	    //drop the values left by the previous generations
+	    if (boundParams < params.length) {
+	        for (int i = 0; i < params.length; i++)
+	            if (paramGenerations[i] != generation)
+	                params[i] = null;
+	    }
+	    return params;
+	}
+
+	private void clearParameterSlots() {
+	    generation++;
+	    boundParams = 0;
+	}
+
+	/*
+	 * Moves the given date from the time zone of the JVM to the time zone of the calendar,
+	 * keeping the same wall-clock fields
+	 */
+	private static long toCalendarTime(java.util.Date x, Calendar cal) {
+	    Calendar local = Calendar.getInstance();
+	    local.setTime(x);
+	    Calendar target = (Calendar) cal.clone();
+	    target.clear();
+	    target.set(local.get(Calendar.YEAR), local.get(Calendar.MONTH), local.get(Calendar.DAY_OF_MONTH), 
+	            local.get(Calendar.HOUR_OF_DAY), local.get(Calendar.MINUTE), local.get(Calendar.SECOND));
+	    target.set(Calendar.MILLISECOND, local.get(Calendar.MILLISECOND));
+	    return target.getTimeInMillis();
 	}
 
 	public void setNull(int parameterIndex, int sqlType) throws SQLException {
-	    //FIXME: does OrientDB support null parameters?
-	    throw new SQLFeatureNotSupportedException();
+	    setParameter(parameterIndex, null, Object.class.getName());
 	}
 
 	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
-		setParameter(parameterIndex, Boolean.toString(x), Boolean.class.getName());
+		setParameter(parameterIndex, Boolean.valueOf(x), Boolean.class.getName());
 	}
 
 	public void setByte(int parameterIndex, byte x) throws SQLException {
-	    setParameter(parameterIndex, Byte.toString(x), Byte.class.getName());
+	    setParameter(parameterIndex, Byte.valueOf(x), Byte.class.getName());
 	}
 
 	public void setShort(int parameterIndex, short x) throws SQLException {
-	    setParameter(parameterIndex, Short.toString(x), Short.class.getName());
+	    setParameter(parameterIndex, Short.valueOf(x), Short.class.getName());
 	}
 
 	public void setInt(int parameterIndex, int x) throws SQLException {
-	    setParameter(parameterIndex, Integer.toString(x), Integer.class.getName());
+	    setParameter(parameterIndex, Integer.valueOf(x), Integer.class.getName());
 	}
 
 	public void setLong(int parameterIndex, long x) throws SQLException {
-	    setParameter(parameterIndex, Long.toString(x), Long.class.getName());
+	    setParameter(parameterIndex, Long.valueOf(x), Long.class.getName());
 	}
 
 	public void setFloat(int parameterIndex, float x) throws SQLException {
-	    setParameter(parameterIndex, Float.toString(x), Float.class.getName());
+	    setParameter(parameterIndex, Float.valueOf(x), Float.class.getName());
 	}
 
 	public void setDouble(int parameterIndex, double x) throws SQLException {
-	    setParameter(parameterIndex, Double.toString(x), Double.class.getName());
+	    setParameter(parameterIndex, Double.valueOf(x), Double.class.getName());
 	}
 
 	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
-	    setParameter(parameterIndex, x.toPlainString(), BigDecimal.class.getName());
+	    setParameter(parameterIndex, x, BigDecimal.class.getName());
 	}
 
 	public void setString(int parameterIndex, String x) throws SQLException {
@@ -199,18 +311,15 @@ public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements
 	}
 
 	public void setDate(int parameterIndex, Date x) throws SQLException {
-	    setParameter(parameterIndex, new SimpleDateFormat(ORecordSerializerJSON.DEF_DATE_FORMAT).format(x), Date.class.getName());
+	    setParameter(parameterIndex, x, Date.class.getName());
 	}
 
 	public void setTime(int parameterIndex, Time x) throws SQLException {
-	    //TODO TEST!
-	    setParameter(parameterIndex, new SimpleDateFormat(
-	            ORecordSerializerJSON.DEF_DATE_FORMAT.substring(ORecordSerializerJSON.DEF_DATE_FORMAT.indexOf(' ')))
-	            .format(x), Time.class.getName());
+	    setParameter(parameterIndex, x, Time.class.getName());
 	}
 
 	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
-	    setParameter(parameterIndex, new SimpleDateFormat(ORecordSerializerJSON.DEF_DATE_FORMAT).format(x), Timestamp.class.getName());
+	    setParameter(parameterIndex, x, Timestamp.class.getName());
 	}
 
 	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
@@ -228,15 +337,23 @@ public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements
 	public void clearParameters() throws SQLException {
 	    if (closed)
 	        throw new SQLException(ErrorMessages.get("PreparedStatement.clearParameterOnClosedObject"));
-		params.clear();
+		clearParameterSlots();
 	}
 
 	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
-	    throw new SQLFeatureNotSupportedException();
+	    setObject(parameterIndex, x, targetSqlType, -1);
 	}
 
+	/**
+	 * Binds the object as it is, so record ids ({@link com.orientechnologies.orient.core.id.ORID}), 
+	 * documents, collections and maps can be used as parameters. A {@link OrientRowId} is bound as
+	 * the record id it wraps.
+	 */
 	public void setObject(int parameterIndex, Object x) throws SQLException {
-	    setParameter(parameterIndex, x.toString(), Object.class.getName());
+	    if (x instanceof OrientRowId)
+	        setParameter(parameterIndex, ((OrientRowId) x).unwrap(), RowId.class.getName());
+	    else
+	        setParameter(parameterIndex, x, Object.class.getName());
 	}
 
 	public boolean execute() throws SQLException {
@@ -252,8 +369,12 @@ public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements
     public void addBatch() throws SQLException {
         if (closed)
             throw new SQLException(ErrorMessages.get("PreparedStatement.addBatchParametersOnClosedObject"));
-        this.batchParams.add(params.toArray(new Object[params.size()]));
-        params.clear();
+        if (readOnly)
+            throw new SQLException(ErrorMessages.get("Statement.addStatementToBatchOnReadOnlyConnection"));
+        if (statement instanceof OQuery)
+            throw new SQLException(ErrorMessages.get("Statement.addQueryToBatch", sql));
+        this.batchParams.add(boundParameters().clone());
+        clearParameterSlots();
 	}
 
 	public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
@@ -286,26 +407,26 @@ public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements
 	}
 
 	public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
-        DateFormat formatter = new SimpleDateFormat(ORecordSerializerJSON.DEF_DATE_FORMAT);
-        formatter.setCalendar(cal);
-        setParameter(parameterIndex, formatter.format(x), Date.class.getName() + " + " + Calendar.class.getName());
+        setParameter(parameterIndex, x == null ? null : new Date(toCalendarTime(x, cal)), 
+                Date.class.getName() + " + " + Calendar.class.getName());
 	}
 
 	public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
-        DateFormat formatter = new SimpleDateFormat(
-                ORecordSerializerJSON.DEF_DATE_FORMAT.substring(ORecordSerializerJSON.DEF_DATE_FORMAT.indexOf(' ')));
-        formatter.setCalendar(cal);
-        setParameter(parameterIndex, formatter.format(x), Time.class.getName() + " + " + Calendar.class.getName());
+        setParameter(parameterIndex, x == null ? null : new Time(toCalendarTime(x, cal)), 
+                Time.class.getName() + " + " + Calendar.class.getName());
 	}
 
 	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
-        DateFormat formatter = new SimpleDateFormat(ORecordSerializerJSON.DEF_DATE_FORMAT);
-        formatter.setCalendar(cal);
-        setParameter(parameterIndex, formatter.format(x), Timestamp.class.getName() + " + " + Calendar.class.getName());
+        Timestamp value = null;
+        if (x != null) {
+            value = new Timestamp(toCalendarTime(x, cal));
+            value.setNanos(x.getNanos());
+        }
+        setParameter(parameterIndex, value, Timestamp.class.getName() + " + " + Calendar.class.getName());
 	}
 
 	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
-	    throw new SQLFeatureNotSupportedException();
+	    setNull(parameterIndex, sqlType);
 	}
 
 	public void setURL(int parameterIndex, URL x) throws SQLException {
@@ -317,7 +438,10 @@ public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements
 	}
 
 	public void setRowId(int parameterIndex, RowId x) throws SQLException {
-	    setParameter(parameterIndex, x.toString(), RowId.class.getName());
+	    if (x == null || x instanceof OrientRowId)
+	        setObject(parameterIndex, x);
+	    else
+	        setParameter(parameterIndex, x.toString(), RowId.class.getName());
 	}
 
 	public void setNString(int parameterIndex, String value) throws SQLException {
@@ -348,8 +472,77 @@ public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements
 	    throw new SQLFeatureNotSupportedException();
 	}
 
+	/**
+	 * Converts the object to the Java type of the target SQL type before binding it as it is:
+	 * the scale is applied to DECIMAL and NUMERIC values, while the length of the other types
+	 * is ignored.
+	 */
 	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
-	    throw new SQLFeatureNotSupportedException();
+	    Class<?> type = javaTypeOf(targetSqlType);
+	    if (type == null)
+	        throw new SQLFeatureNotSupportedException(ErrorMessages.get("PreparedStatement.unsupportedSqlType", targetSqlType));
+	    if (x instanceof OrientRowId)
+	        x = ((OrientRowId) x).unwrap();
+	    Object value = x;
+	    if (x != null && type != Object.class) {
+	        try {
+	            value = OrientJdbcConverter.forType(type).convert(x);
+	        } catch (RuntimeException e) {
+	            throw new SQLException(ErrorMessages.get("PreparedStatement.convertParameter", 
+	                    parameterIndex, x.getClass().getName(), type.getName()), e);
+	        }
+	        if (value instanceof BigDecimal && scaleOrLength >= 0)
+	            value = ((BigDecimal) value).setScale(scaleOrLength, RoundingMode.HALF_UP);
+	    }
+	    setParameter(parameterIndex, value, type.getName());
+	}
+
+	/*
+	 * Returns the Java type the values of the given SQL type are bound as, 
+	 * or null for the types that cannot be bound
+	 */
+	private static Class<?> javaTypeOf(int sqlType) {
+	    switch (sqlType) {
+	        case Types.BIT:
+	        case Types.BOOLEAN:
+	            return Boolean.class;
+	        case Types.TINYINT:
+	            return Byte.class;
+	        case Types.SMALLINT:
+	            return Short.class;
+	        case Types.INTEGER:
+	            return Integer.class;
+	        case Types.BIGINT:
+	            return Long.class;
+	        case Types.REAL:
+	            return Float.class;
+	        case Types.FLOAT:
+	        case Types.DOUBLE:
+	            return Double.class;
+	        case Types.DECIMAL:
+	        case Types.NUMERIC:
+	            return BigDecimal.class;
+	        case Types.CHAR:
+	        case Types.VARCHAR:
+	        case Types.LONGVARCHAR:
+	        case Types.NCHAR:
+	        case Types.NVARCHAR:
+	        case Types.LONGNVARCHAR:
+	            return String.class;
+	        case Types.DATE:
+	            return Date.class;
+	        case Types.TIME:
+	            return Time.class;
+	        case Types.TIMESTAMP:
+	            return Timestamp.class;
+	        case Types.ROWID:
+	            return ORID.class;
+	        case Types.JAVA_OBJECT:
+	        case Types.OTHER:
+	            return Object.class;
+	        default:
+	            return null;
+	    }
 	}
 
 	public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
@@ -400,23 +593,53 @@ public class OrientJdbcPreparedStatement extends OrientJdbcStatement implements
     public int[] executeBatch() throws SQLException {
         if (closed)
             throw new SQLException(ErrorMessages.get("Statement.executeBatchOnClosedObject"));
+        checkDatabaseAvailable(sql);
         
-        ODatabaseRecordThreadLocal.INSTANCE.set(database);
+        OrientJdbcDatabaseBinding.bind(database);
         
         //reset the fields holding the result of single statement
         resultSet = null;
         updateCount = NO_UPDATE_RESULT;
         
-        int[] results = new int[batches.size()];
+        //the same parsed command is executed with each parameter set
+        final OCommandSQL command = (OCommandSQL) statement;
+        //in auto-commit mode the rows are committed in chunks, otherwise they belong
+        //to the transaction of the connection, which is begun if needed
+        final boolean autoCommit = connection.getAutoCommit();
+        final int chunkSize = autoCommit ? connection.getBatchTransactionSize() : 0;
+        int[] results = new int[batchParams.size()];
         int i = 0;
+        int committed = 0;
+        boolean inTransaction = false;
+        boolean intent = declareBatchIntent();
         try {
-            for (OCommandSQL sql : batches) {
-                results[i] = super.executeBatchUpdate(sql, batchParams.get(i));
-            	i++;
+            if (!autoCommit && !database.getTransaction().isActive())
+                connection.configTransaction();
+            for (Object[] args : batchParams) {
+                if (chunkSize > 0 && !inTransaction) {
+                    connection.configTransaction();
+                    inTransaction = true;
+                }
+                int count = executeBatchUpdate(command, args);
+                results[i++] = count;
+                if (inTransaction && (i % chunkSize == 0 || i == results.length)) {
+                    connection.commitImpl();
+                    inTransaction = false;
+                }
+                if (!inTransaction)
+                    committed = i;
             }
+            return results;
         } catch (Exception e) {
-            throw new BatchUpdateException(e);
+            if (inTransaction)
+                connection.rollabackImpl();
+            //only the rows that have been committed are reported, while in manual commit
+            //mode the rows executed so far are left to the transaction of the connection
+            throw new BatchUpdateException(e.getMessage(), Arrays.copyOf(results, autoCommit ? committed : i), e);
+        } finally {
+            if (intent)
+                database.declareIntent(null);
+            batchParams.clear();
         }
-        return results;
     }
 }
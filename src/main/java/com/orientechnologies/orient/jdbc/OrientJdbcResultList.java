@@ -0,0 +1,35 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.util.AbstractList;
+
+import com.orientechnologies.orient.core.command.OCommandResultListener;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Random access list of the documents of a query result, filled as the listener of an
+ * asynchronous query, that does not simply keep all the documents in the heap.
+ * The list must be closed once the result set reading it has been closed.
+ */
+abstract class OrientJdbcResultList extends AbstractList<ODocument> implements OCommandResultListener {
+
+    /**
+     * Releases the resources held by the list.
+     */
+    abstract void close();
+}
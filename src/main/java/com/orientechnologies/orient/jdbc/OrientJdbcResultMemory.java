@@ -0,0 +1,113 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Estimate of the heap retained by the rows of a result set and by the records they
+ * link, which can be read by unwrapping the result set:
+ * <pre>
+ * long bytes = resultSet.unwrap(OrientJdbcResultMemory.class).getRetainedBytes();
+ * </pre>
+ * A loaded record keeps its serialized content along with the fields decoded from it,
+ * so its size is estimated as twice the size of the content plus a fixed overhead. A
+ * document built by a projection has no serialized content and is estimated from the
+ * number of its fields. The rows of a spilled result, which are written to a temporary
+ * file, and the ones of a scroll-sensitive result set, which only keeps a window of
+ * them, are not counted, while a streamed result set only counts its current row.
+ */
+public class OrientJdbcResultMemory {
+
+    //the heap taken by a record without content: the object, its identity and its field map
+    static final int RECORD_OVERHEAD = 160;
+    //the heap taken by a field of a document that has no serialized content
+    static final int FIELD_OVERHEAD = 48;
+
+    private final long maxBytes;
+    private long retainedBytes;
+    private boolean limitExceeded;
+
+    /**
+     * @param iMaxBytes the maximum number of bytes of the loaded rows (0 means no limit)
+     */
+    OrientJdbcResultMemory(long iMaxBytes) {
+        this.maxBytes = iMaxBytes;
+    }
+
+    /**
+     * @return the estimated number of bytes of the heap retained by the given record
+     */
+    static long estimate(ORecord<?> record) {
+        int size = record.getSize();
+        if (size == 0 && record instanceof ODocument)
+            return RECORD_OVERHEAD + (long) FIELD_OVERHEAD * ((ODocument) record).fieldNames().length;
+        return RECORD_OVERHEAD + 2L * size;
+    }
+
+    /**
+     * Counts a loaded record.
+     *
+     * @return <code>false</code> if the loaded rows now exceed the maximum number of bytes
+     */
+    boolean add(ORecord<?> record) {
+        retainedBytes += estimate(record);
+        if (maxBytes > 0 && retainedBytes > maxBytes)
+            limitExceeded = true;
+        return !limitExceeded;
+    }
+
+    /**
+     * Replaces the count with the one of the given record, which is the only one retained
+     */
+    void reset(ORecord<?> record) {
+        retainedBytes = record == null ? 0 : estimate(record);
+    }
+
+    /**
+     * Stops counting a record that is no longer retained.
+     */
+    void remove(ORecord<?> record) {
+        retainedBytes -= estimate(record);
+    }
+
+    void clear() {
+        retainedBytes = 0;
+    }
+
+    /**
+     * @return the estimated number of bytes of the heap retained by the result set
+     */
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * @return the maximum number of bytes of the rows of the result set (0 means no limit)
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return <code>true</code> if the rows loaded exceeded the maximum number of bytes
+     */
+    public boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+}
@@ -39,21 +39,33 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Set;
 
-import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.ODatabaseRecord;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.db.record.ORecordLazyList;
 import com.orientechnologies.orient.core.db.record.ORecordLazyMultiValue;
 import com.orientechnologies.orient.core.exception.ORecordNotFoundException;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OProperty;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.record.impl.ORecordBytes;
 import com.orientechnologies.orient.core.sql.OCommandExecutorSQLAbstract;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import com.orientechnologies.orient.jdbc.common.OrientJdbcConstants;
 
 /**
@@ -70,6 +82,15 @@ public class OrientJdbcResultSet implements ResultSet {
     
     private static final int BEFORE_FIRST_INDEX = -1;
     
+    //the original value of a field that did not exist before being updated
+    private static final Object MISSING_VALUE = new Object();
+    
+    //the maximum number of rows whose links are loaded at once
+    private static final int MAX_LINK_WINDOW = 500;
+    //the number of documents whose fields give the columns of a result, when they
+    //cannot be told from the query
+    private static final int COLUMN_SAMPLE_SIZE = 32;
+    
     static final int DEFAULT_FETCH_DIRECTION = FETCH_FORWARD;
     static final int DEFAULT_FETCH_SIZE = OrientJdbcConstants.UNLIMITED_FETCH_SIZE;
     
@@ -80,11 +101,17 @@ public class OrientJdbcResultSet implements ResultSet {
     
 	private List<ODocument> records = null;
 	private OrientJdbcStatement statement;
+	//the database bound to the calling thread before reading a document
+	private final ODatabaseRecord database;
 	//this is the actual index starting from 0
 	private int cursor;
 	private int rowCount;
 	private ODocument document;
 	private String[] fieldNames;
+	//case-insensitive index of the field names, shared by the result sets with the same columns
+	private OrientJdbcColumnIndex columnIndex;
+	//the decoded columns, when the statement is in columnar mode (the records are not kept)
+	private OrientJdbcColumnarResult columnar;
 	private final int type;
 	private final int concurrency;
 	private final int holdability;
@@ -94,12 +121,73 @@ public class OrientJdbcResultSet implements ResultSet {
 	private int fetchSize;
 	
 	private String currentColumnLabel;
+	//tells if the value last read by a primitive getter was NULL: these getters reset the
+	//label of the current column, so wasNull() does not need to read the value again
+	private boolean lastValueNull;
+	
+	//source of the rows of a streamed forward-only result set
+	private OrientJdbcCursor stream;
+	//the row following the current one when the result set is streamed
+	private ODocument nextStreamedDocument;
+	
+	//the state of an updatable result set: the documents of the rows updated or deleted,
+	//which replace the ones of the list of records, and the flags of these rows
+	private boolean updatable;
+	private Map<Integer, ODocument> changedRows;
+	private BitSet updatedRows;
+	private BitSet deletedRows;
+	//the documents to be saved or deleted by the next write to the database, compared
+	//by identity since the new documents are equal as long as they have no record id
+	private Set<ODocument> pendingSaves;
+	private Set<ODocument> pendingDeletes;
+	//the documents written to the transaction of the connection, not committed yet
+	private Set<ODocument> uncommittedRows;
+	//the values of the current row before its columns were updated, restored when the
+	//changes are cancelled or the cursor moves before updateRow() has been called
+	private Map<String, Object> originalValues;
+	//the row built by the update methods after moveToInsertRow() and its class
+	private ODocument insertDocument;
+	private String insertClassName;
+	
+	//for each field, the records linked by the rows of a window, loaded in batches by
+	//getObject() and shared by these rows (a null value stands for a missing record),
+	//and the window of rows (the last one excluded) whose links have been loaded
+	private Map<String, Map<ORID, ORecordInternal<?>>> linkedRecords;
+	private Map<String, int[]> linkWindows;
+	
+	//the converter of each column chosen by the last call of getObject(String, Class)
+	private OrientJdbcConverter[] converters;
+	
+	//the estimate of the heap retained by the rows and their linked records
+	private final OrientJdbcResultMemory memory;
 
 	protected OrientJdbcResultSet(OrientJdbcStatement iOrientJdbcStatement, List<ODocument> iRecords, 
 	        int type, int concurrency, int holdability, int fetchDirection, boolean includeRid) throws SQLException {
+	    this(iOrientJdbcStatement, iRecords, type, concurrency, holdability, fetchDirection, includeRid, null);
+	}
+
+	/**
+	 * @param iMemory the count of the bytes of the records made while they were loaded,
+	 * <code>null</code> to count them now
+	 */
+	protected OrientJdbcResultSet(OrientJdbcStatement iOrientJdbcStatement, List<ODocument> iRecords, 
+	        int type, int concurrency, int holdability, int fetchDirection, boolean includeRid, 
+	        OrientJdbcResultMemory iMemory) throws SQLException {
 	    statement = iOrientJdbcStatement;
+	    database = iOrientJdbcStatement.database;
 		records = iRecords;
 		rowCount = iRecords.size();
+		this.type = type;
+		if (iMemory != null)
+		    memory = iMemory;
+		else {
+		    memory = new OrientJdbcResultMemory(0);
+		    //the spilled and scroll-sensitive rows are not kept in the heap
+		    if (!(iRecords instanceof OrientJdbcResultList)) {
+		        for (ODocument record : iRecords)
+		            memory.add(record);
+		    }
+		}
 		
 		setFetchDirection(fetchDirection);
 		//set up the cursor either to the before-first or after-last position
@@ -113,50 +201,339 @@ public class OrientJdbcResultSet implements ResultSet {
 		document = null;
 		
 		if (rowCount > 0) {
-			ODocument document = records.get(0);
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-
-            String[] fieldNames = document.fieldNames();
-			if (includeRid) {
-    			//check that the field name list has the RID
-    			boolean hasRIDField = false;
-    			int i = 0;
-    			while (i < fieldNames.length && !hasRIDField) {
-    			    if (RID_COLUMN_NAME.equals(fieldNames[i]))
-    			        hasRIDField = true;
-    			    else
-    			        i++;
-    			}
-    			if (hasRIDField)
-    			    this.fieldNames = fieldNames;
-    			else {
-    			    //add to the top of the field name list the "rid" field
-    	            //that allows the retrieval of the document rid as this field
-    	            //is not included in ODocument.fieldNames()
-    	            ArrayList<String> fieldNameList = new ArrayList<String> (fieldNames.length + 1);
-    	            fieldNameList.add(RID_COLUMN_NAME);
-    	            fieldNameList.addAll(Arrays.asList(fieldNames));
-    	            this.fieldNames = fieldNameList.toArray(new String[fieldNames.length + 1]);
-    			}
-			} else
-			    this.fieldNames = fieldNames;
-			    
-		}
+		    initFieldNames(records.subList(0, Math.min(rowCount, COLUMN_SAMPLE_SIZE)), includeRid);
+		    if (iOrientJdbcStatement.columnar) {
+		        columnar = new OrientJdbcColumnarResult(fieldNames, records);
+		        releaseRecords();
+		    } else if (iOrientJdbcStatement.connection.isParallelDecoding() && !(records instanceof OrientJdbcResultList))
+		        //the spilled and scroll-sensitive rows are decoded again at every access
+		        OrientJdbcParallelDecoder.decode(database, records);
+		} else
+		    initFieldNames(Collections.<ODocument> emptyList(), includeRid);
 		
 		this.concurrency = concurrency;
-		this.type = type;
 		this.holdability = holdability;
 		
+		//the rows decoded in columnar mode are not documents that can be changed
+		if (concurrency == CONCUR_UPDATABLE && columnar == null) {
+		    updatable = true;
+		    changedRows = new HashMap<Integer, ODocument>();
+		    updatedRows = new BitSet();
+		    deletedRows = new BitSet();
+		    pendingSaves = newDocumentSet();
+		    pendingDeletes = newDocumentSet();
+		    uncommittedRows = newDocumentSet();
+		    originalValues = new HashMap<String, Object>();
+		    if (rowCount > 0)
+		        insertClassName = records.get(0).getClassName();
+		}
+		
 		closed = false;
 	}
+	
+	/**
+	 * Creates a forward-only result set whose rows are read from the given cursor
+	 * while they are consumed, so that only the rows buffered by the cursor are kept
+	 * in memory.
+	 */
+	protected OrientJdbcResultSet(OrientJdbcStatement iOrientJdbcStatement, OrientJdbcCursor iStream, 
+	        int concurrency, int holdability, int fetchSize, boolean includeRid) throws SQLException {
+	    statement = iOrientJdbcStatement;
+	    database = iOrientJdbcStatement.database;
+	    stream = iStream;
+	    records = null;
+	    this.type = TYPE_FORWARD_ONLY;
+	    this.fetchDirection = FETCH_FORWARD;
+	    this.fetchSize = fetchSize;
+	    cursor = BEFORE_FIRST_INDEX;
+	    document = null;
+	    
+	    //read ahead the first row: it gives the column names and tells if the result is empty
+	    try {
+	        nextStreamedDocument = readStreamedDocument();
+	    } catch (SQLException e) {
+	        stream.close();
+	        throw e;
+	    }
+	    memory = new OrientJdbcResultMemory(0);
+	    memory.reset(nextStreamedDocument);
+	    if (nextStreamedDocument == null) {
+	        rowCount = 0;
+	        initFieldNames(Collections.<ODocument> emptyList(), includeRid);
+	    } else {
+	        rowCount = 1;
+	        initFieldNames(Collections.singletonList(nextStreamedDocument), includeRid);
+	    }
+	    
+	    this.concurrency = concurrency;
+	    this.holdability = holdability;
+	    
+	    closed = false;
+	}
+	
+	private void initFieldNames (List<ODocument> sample, boolean includeRid) {
+		OrientJdbcDatabaseBinding.ensureBound(database);
+
+		String[] fieldNames = resolveColumns(sample);
+		if (includeRid) {
+			//check that the field name list has the RID
+			boolean hasRIDField = false;
+			int i = 0;
+			while (i < fieldNames.length && !hasRIDField) {
+			    if (RID_COLUMN_NAME.equals(fieldNames[i]))
+			        hasRIDField = true;
+			    else
+			        i++;
+			}
+			if (hasRIDField)
+			    this.fieldNames = fieldNames;
+			else {
+			    //add to the top of the field name list the "rid" field
+	            //that allows the retrieval of the document rid as this field
+	            //is not included in ODocument.fieldNames()
+	            this.fieldNames = new String[fieldNames.length + 1];
+	            this.fieldNames[0] = RID_COLUMN_NAME;
+	            System.arraycopy(fieldNames, 0, this.fieldNames, 1, fieldNames.length);
+			}
+		} else
+		    this.fieldNames = fieldNames;
+		columnIndex = statement.connection.getStatementCache().getColumnIndex(this.fieldNames);
+	}
+
+	/**
+	 * Returns the columns of the result: the ones of the projection of the query when it
+	 * only names fields, otherwise the fields of the first documents. When there is no
+	 * document, the columns of a query reading the whole documents of a class are the
+	 * properties of the class. The columns found from the documents of a query over a
+	 * class are kept by the statement cache until the schema changes, so that every
+	 * execution of the query has the columns of the previous ones, followed by the new
+	 * fields of its documents, which do not change the schema.
+	 * <p>
+	 * The array returned may be shared and must not be changed.
+	 */
+	private String[] resolveColumns(List<ODocument> sample) {
+	    OrientJdbcParsedStatement parsed = statement.parsedQuery;
+	    if (parsed != null && parsed.getProjectedColumns() != null)
+	        return parsed.getProjectedColumns();
+	    if (parsed == null || parsed.getTargetClass() == null)
+	        return sampleColumns(sample);
+	    OSchema schema = database.getMetadata().getSchema();
+	    OClass oClass = schema.getClass(parsed.getTargetClass());
+	    if (oClass == null)
+	        return sampleColumns(sample);
+	    int schemaVersion = schema.getVersion();
+	    OrientJdbcStatementCache cache = statement.connection.getStatementCache();
+	    String[] columns = cache.getResultColumns(parsed.getSql(), schemaVersion);
+	    if (columns == null) {
+	        if (sample.isEmpty())
+	            //not kept, the next execution may find the columns in its documents
+	            return parsed.getProjection().length() == 0 ? classColumns(oClass) : sampleColumns(sample);
+	        columns = sampleColumns(sample);
+	        cache.putResultColumns(parsed.getSql(), schemaVersion, columns);
+	    } else if (!sample.isEmpty()) {
+	        String[] merged = addSampleColumns(columns, sample);
+	        if (merged != columns) {
+	            columns = merged;
+	            cache.putResultColumns(parsed.getSql(), schemaVersion, columns);
+	        }
+	    }
+	    return columns;
+	}
+
+	/**
+	 * @return the given columns followed by the other fields of the given documents, or
+	 * the same array if the documents have no other field
+	 */
+	private static String[] addSampleColumns(String[] columns, List<ODocument> sample) {
+	    Set<String> merged = new LinkedHashSet<String>(Arrays.asList(columns));
+	    for (ODocument document : sample)
+	        merged.addAll(Arrays.asList(document.fieldNames()));
+	    if (merged.size() == columns.length)
+	        return columns;
+	    return merged.toArray(new String[merged.size()]);
+	}
+
+	/**
+	 * @return the union of the fields of the given documents in the order they are found
+	 */
+	private static String[] sampleColumns(List<ODocument> sample) {
+	    if (sample.size() == 1)
+	        return sample.get(0).fieldNames();
+	    Set<String> columns = new LinkedHashSet<String>();
+	    for (ODocument document : sample)
+	        columns.addAll(Arrays.asList(document.fieldNames()));
+	    return columns.toArray(new String[columns.size()]);
+	}
+
+	/**
+	 * @return the names of the properties of the given class, sorted
+	 */
+	private static String[] classColumns(OClass oClass) {
+	    List<String> properties = new ArrayList<String>();
+	    for (OProperty property : oClass.properties())
+	        properties.add(property.getName());
+	    Collections.sort(properties);
+	    return properties.toArray(new String[properties.size()]);
+	}
+
+	/**
+	 * @return the name of the document field read through the given column label: the
+	 * labels are case-insensitive, while the field names of a document are not
+	 */
+	private String toFieldName(String columnLabel) {
+		if (columnIndex == null)
+			return columnLabel;
+		int index = columnIndex.indexOf(columnLabel);
+		return index < 0 ? columnLabel : fieldNames[index];
+	}
+
+	/**
+	 * Reads the value of a field as it is stored in the document, without any conversion,
+	 * and records if it is NULL for {@link #wasNull()}
+	 */
+	private Object getField(String columnLabel) {
+		if (columnar == null)
+			return document.field(toFieldName(columnLabel));
+		int column = columnIndex.indexOf(columnLabel);
+		return column < 0 ? null : columnar.getValue(column, cursor);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <RET> RET getField(String columnLabel, OType type) {
+		if (columnar == null)
+			return document.field(toFieldName(columnLabel), type);
+		Object value = getField(columnLabel);
+		return value == null ? null : (RET) OType.convert(value, type.getDefaultJavaType());
+	}
+
+	@SuppressWarnings("unchecked")
+	private <RET> RET getField(String columnLabel, Class<RET> type) {
+		if (columnar == null)
+			return document.field(toFieldName(columnLabel), type);
+		Object value = getField(columnLabel);
+		return value == null ? null : (RET) OType.convert(value, type);
+	}
+
+	private ORID getIdentity() {
+		return columnar == null ? document.getIdentity() : columnar.getIdentity(cursor);
+	}
+
+	/*
+	 * The primitive getters of the columnar mode read the arrays of the primitive columns
+	 * without boxing their values
+	 */
+
+	private long getColumnarLong(String columnLabel) {
+		int column = getColumnarIndex(columnLabel);
+		if (column < 0)
+			return 0;
+		if (columnar.isPrimitive(column))
+			return columnar.getLong(column, cursor);
+		return toNumber(columnar.getValue(column, cursor)).longValue();
+	}
+
+	private double getColumnarDouble(String columnLabel) {
+		int column = getColumnarIndex(columnLabel);
+		if (column < 0)
+			return 0;
+		if (columnar.isPrimitive(column))
+			return columnar.getDouble(column, cursor);
+		return toNumber(columnar.getValue(column, cursor)).doubleValue();
+	}
+
+	private boolean getColumnarBoolean(String columnLabel) {
+		int column = getColumnarIndex(columnLabel);
+		if (column < 0)
+			return false;
+		if (columnar.isPrimitive(column))
+			return columnar.getDouble(column, cursor) != 0;
+		return toBoolean(columnar.getValue(column, cursor));
+	}
+
+	/**
+	 * @return the index of the column with the given label or -1 if its value is NULL
+	 */
+	private int getColumnarIndex(String columnLabel) {
+		int column = columnIndex.indexOf(columnLabel);
+		currentColumnLabel = null;
+		lastValueNull = column < 0 || columnar.isNullValue(column, cursor);
+		return lastValueNull ? -1 : column;
+	}
+
+	/**
+	 * @return the document giving the schema of the columns: the current row or, in
+	 * columnar mode, the first one
+	 */
+	ODocument getSchemaDocument() {
+		return columnar == null ? document : columnar.getPrototype();
+	}
+
+	private Object getPrimitiveField(String columnLabel) {
+		OrientJdbcDatabaseBinding.ensureBound(database);
+		Object value = getField(columnLabel);
+		currentColumnLabel = null;
+		lastValueNull = value == null;
+		return value;
+	}
+
+	private static Number toNumber(Object value) {
+		if (value instanceof Number)
+			return (Number) value;
+		if (value instanceof Boolean)
+			return ((Boolean) value).booleanValue() ? 1 : 0;
+		if (value instanceof String)
+			return new BigDecimal(((String) value).trim());
+		if (value instanceof java.util.Date)
+			return ((java.util.Date) value).getTime();
+		throw new ClassCastException(value.getClass().getName());
+	}
+
+	private static boolean toBoolean(Object value) {
+		if (value instanceof Boolean)
+			return ((Boolean) value).booleanValue();
+		if (value instanceof Number)
+			return ((Number) value).doubleValue() != 0;
+		if (value instanceof String) {
+			String string = ((String) value).trim();
+			return "1".equals(string) || Boolean.parseBoolean(string);
+		}
+		throw new ClassCastException(value.getClass().getName());
+	}
+
+	/**
+	 * Releases the loaded rows, deleting the temporary file of a spilled result
+	 */
+	private void releaseRecords() {
+	    if (records instanceof OrientJdbcResultList)
+	        ((OrientJdbcResultList) records).close();
+	    records = null;
+	}
 
 	public void close() throws SQLException {
 	    if (!closed) {
-    		rowCount = 0;
-    		records = null;
-    		document = null;
-    		statement = null;
-    		closed = true;
+	        try {
+	            writePendingRows();
+	        } finally {
+	            //the rows written so far are left to the transaction of the connection
+	            if (updatable)
+	                statement.connection.removePendingResultSet(this);
+        		rowCount = 0;
+        		releaseRecords();
+        		columnar = null;
+        		if (stream != null) {
+        		    stream.close();
+        		    statement.connection.stopStreaming(statement);
+        		    stream = null;
+        		    nextStreamedDocument = null;
+        		}
+        		document = null;
+        		insertDocument = null;
+        		linkedRecords = null;
+        		linkWindows = null;
+        		memory.clear();
+        		statement = null;
+        		closed = true;
+	        }
 	    }
 	}
 
@@ -188,6 +565,8 @@ public class OrientJdbcResultSet implements ResultSet {
 	    if (closed)
 	        throw new SQLException(ErrorMessages.get("ResultSet.moveToNextOnClosedObject"));
 	    
+	    if (stream != null)
+	        return moveToNextStreamedRow();
 	    if (fetchDirection == FETCH_REVERSE)
 	        return moveToAbsolutePosition(--cursor);
 	    else
@@ -197,13 +576,15 @@ public class OrientJdbcResultSet implements ResultSet {
 	public boolean previous() throws SQLException {
         if (closed)
             throw new SQLException(ErrorMessages.get("ResultSet.moveToPreviousOnClosedObject"));
-        if (fetchDirection == FETCH_FORWARD)
+        if (type == TYPE_FORWARD_ONLY)
             throw new SQLException(ErrorMessages.get("ResultSet.moveToPreviousWhenForwardOnly"));
         
         if (fetchDirection == FETCH_REVERSE)
             return moveToAbsolutePosition(++cursor);
         else
-            return moveToAbsolutePosition(--cursor);
+            //a negative index would count from the last row: leaving the first row
+            //moves the cursor before it
+            return moveToAbsolutePosition(cursor > 0 ? cursor - 1 : -rowCount - 1);
 	}
 
 	public void afterLast() throws SQLException {
@@ -211,6 +592,7 @@ public class OrientJdbcResultSet implements ResultSet {
             throw new SQLException(ErrorMessages.get("ResultSet.moveToAfterLastOnClosedObject"));
         if (type == TYPE_FORWARD_ONLY)
             throw new SQLException(ErrorMessages.get("ResultSet.moveToAfterLastWhenForwardOnly"));
+        leaveRow();
 
         // OUT OF LAST ITEM
         if (fetchDirection == FETCH_REVERSE)
@@ -224,6 +606,7 @@ public class OrientJdbcResultSet implements ResultSet {
             throw new SQLException(ErrorMessages.get("ResultSet.moveToBeforeFirstOnClosedObject"));
         if (type == TYPE_FORWARD_ONLY)
             throw new SQLException(ErrorMessages.get("ResultSet.moveToBeforeFirstWhenForwardOnly"));
+        leaveRow();
 		
         // OUT OF FIRST ITEM
         if (fetchDirection == FETCH_REVERSE)
@@ -261,14 +644,45 @@ public class OrientJdbcResultSet implements ResultSet {
 	    }
 	}
 	
+	private boolean moveToNextStreamedRow () throws SQLException {
+	    if (nextStreamedDocument == null) {
+	        // OUT OF LAST ITEM
+	        cursor = rowCount;
+	        document = null;
+	        return false;
+	    }
+	    cursor++;
+	    document = nextStreamedDocument;
+	    //the row count includes the read-ahead row, if any, so that isLast() keeps working
+	    nextStreamedDocument = readStreamedDocument();
+	    memory.reset(document);
+	    if (nextStreamedDocument != null) {
+	        memory.add(nextStreamedDocument);
+	        rowCount++;
+	    }
+	    return true;
+	}
+
+	/**
+	 * Reads the next document of the cursor: once it is exhausted, its loader thread no
+	 * longer uses the database, so the other statements of the connection can run again
+	 */
+	private ODocument readStreamedDocument () throws SQLException {
+	    ODocument next = stream.next();
+	    if (next == null)
+	        statement.connection.stopStreaming(statement);
+	    return next;
+	}
+	
 	private boolean moveToAbsolutePosition (int rowIndex) throws SQLException {
+	    leaveRow();
         if (rowIndex >= rowCount) {
             // OUT OF LAST ITEM
             cursor = rowCount;
             return false;
         } else if (rowIndex >= 0) {
             cursor = rowIndex;
-            document = records.get(cursor);
+            document = columnar == null ? rowDocument(cursor) : null;
             return true;
         } else {
             //rowIndex < 0
@@ -281,7 +695,7 @@ public class OrientJdbcResultSet implements ResultSet {
                 return false;
             } else {
                 cursor = posAfterRotation;
-                document = records.get(cursor);
+                document = columnar == null ? rowDocument(cursor) : null;
                 return true;
             }
         }
@@ -346,21 +760,235 @@ public class OrientJdbcResultSet implements ResultSet {
 	public void deleteRow() throws SQLException {
 	    if (closed)
 	        throw new SQLException(ErrorMessages.get("ResultSet.deleteRowFromClosedObject"));
-		document.delete();
+	    if (columnar != null)
+	        throw new SQLException(ErrorMessages.get("ResultSet.deleteRowOfColumnarResult"));
+	    checkUpdatable();
+	    if (insertDocument != null)
+	        throw new SQLException(ErrorMessages.get("ResultSet.deleteInsertRow"));
+	    checkStoredRow();
+	    if (isWrittenInTransaction() && hasBooleanIndex(document))
+	        throw new SQLFeatureNotSupportedException(ErrorMessages.get("ResultSet.deleteRowInTransaction", cursor + 1));
+	    restoreOriginalValues();
+	    //the row stays in the result set, rowDeleted() tells that it has been deleted
+	    changedRows.put(cursor, document);
+	    deletedRows.set(cursor);
+	    pendingSaves.remove(document);
+	    pendingDeletes.add(document);
+	    addPendingRow();
+	}
+
+	/**
+	 * @return the document of the given row, which is the one changed through this
+	 * result set if the row has been updated or deleted
+	 */
+	private ODocument rowDocument(int row) {
+	    if (changedRows != null && !changedRows.isEmpty()) {
+	        ODocument changed = changedRows.get(row);
+	        if (changed != null)
+	            return changed;
+	    }
+	    return records.get(row);
+	}
+
+	private void checkUpdatable() throws SQLException {
+	    if (!updatable)
+	        throw new SQLException(ErrorMessages.get("ResultSet.notUpdatable"));
+	}
+
+	/**
+	 * Checks that the cursor is on a row, not deleted, of a stored record: the other rows,
+	 * like the ones of a projection, have no record the changes can be written to.
+	 */
+	private void checkStoredRow() throws SQLException {
+	    if (cursor == BEFORE_FIRST_INDEX || cursor >= rowCount)
+	        throw new SQLException(ErrorMessages.get("ResultSet.changeRowOutOfBound", cursor));
+	    if (deletedRows.get(cursor))
+	        throw new SQLException(ErrorMessages.get("ResultSet.changeDeletedRow", cursor + 1));
+	    if (!document.getIdentity().isPersistent())
+	        throw new SQLException(ErrorMessages.get("ResultSet.changeRowNotStored", cursor + 1));
+	}
+
+	/**
+	 * Sets a field of the current row, or of the insert row, keeping its original value
+	 * so that the change can be cancelled until updateRow() is called.
+	 */
+	private void updateField(String columnLabel, Object value) throws SQLException {
+	    if (closed)
+	        throw new SQLException(ErrorMessages.get("ResultSet.updateColumnOfClosedObject", columnLabel));
+	    checkUpdatable();
+	    String fieldName = toFieldName(columnLabel);
+	    if (RID_COLUMN_NAME.equalsIgnoreCase(fieldName))
+	        throw new SQLException(ErrorMessages.get("ResultSet.updateRid"));
+	    if (insertDocument == null) {
+	        checkStoredRow();
+	        if (!originalValues.containsKey(fieldName))
+	            originalValues.put(fieldName, document.containsField(fieldName) ? document.field(fieldName) : MISSING_VALUE);
+	    }
+	    OrientJdbcDatabaseBinding.ensureBound(database);
+	    //the JDBC subclasses of java.util.Date are stored as plain dates
+	    if (value instanceof java.util.Date && value.getClass() != java.util.Date.class)
+	        value = new java.util.Date(((java.util.Date) value).getTime());
+	    document.field(fieldName, value);
+	}
+
+	private void restoreOriginalValues() {
+	    if (originalValues == null || originalValues.isEmpty())
+	        return;
+	    OrientJdbcDatabaseBinding.ensureBound(database);
+	    for (Map.Entry<String, Object> field : originalValues.entrySet()) {
+	        if (field.getValue() == MISSING_VALUE)
+	            document.removeField(field.getKey());
+	        else
+	            document.field(field.getKey(), field.getValue());
+	    }
+	    originalValues.clear();
+	}
+
+	/**
+	 * Drops the changes not confirmed by updateRow() or insertRow() before the cursor moves.
+	 */
+	private void leaveRow() {
+	    if (insertDocument != null) {
+	        insertDocument = null;
+	        document = null;
+	    }
+	    restoreOriginalValues();
+	}
+
+	private ODocument newInsertDocument() {
+	    OrientJdbcDatabaseBinding.ensureBound(database);
+	    //the new rows belong to the class of the rows of the result set, if any
+	    return insertClassName == null ? new ODocument() : new ODocument(insertClassName);
+	}
+
+	/**
+	 * Writes the changed rows once there are as many as the update batch size of the
+	 * connection, otherwise lets the connection write them before its next commit.
+	 */
+	private void addPendingRow() throws SQLException {
+	    if (pendingSaves.size() + pendingDeletes.size() >= statement.connection.getUpdateBatchSize())
+	        writePendingRows();
+	    else
+	        statement.connection.addPendingResultSet(this);
+	}
+
+	private static Set<ODocument> newDocumentSet() {
+	    return Collections.newSetFromMap(new IdentityHashMap<ODocument, Boolean>());
+	}
+
+	/**
+	 * @return true if the changed rows are written by a transaction: the one of the
+	 * connection in manual commit mode, or the one of each batch of several rows
+	 */
+	private boolean isWrittenInTransaction() throws SQLException {
+	    OrientJdbcConnection connection = statement.connection;
+	    return !connection.getAutoCommit() || connection.getUpdateBatchSize() > 1;
+	}
+
+	/**
+	 * @return true if the class of the given document has an index on a boolean property:
+	 * OrientDB cannot commit a transaction deleting a record from such an index, the
+	 * record being deleted while the rest of the transaction is not committed
+	 */
+	private static boolean hasBooleanIndex(ODocument document) {
+	    OClass documentClass = document.getSchemaClass();
+	    if (documentClass != null)
+	        for (OProperty property : documentClass.getIndexedProperties())
+	            if (property.getType() == OType.BOOLEAN)
+	                return true;
+	    return false;
+	}
+
+	/**
+	 * Writes the rows updated, inserted or deleted through this result set. In auto-commit
+	 * mode a single row is written on its own and several rows by a transaction of their
+	 * own, otherwise the rows belong to the transaction of the connection, which is begun
+	 * if needed and ended by commit() or rollback(). The rows that cannot be written are
+	 * kept, to be written again or discarded by a rollback.
+	 */
+	void writePendingRows() throws SQLException {
+	    if (pendingSaves == null || (pendingSaves.isEmpty() && pendingDeletes.isEmpty()))
+	        return;
+	    OrientJdbcConnection connection = statement.connection;
+	    OrientJdbcDatabaseBinding.ensureBound(database);
+	    final boolean autoCommit = connection.getAutoCommit();
+	    final boolean ownTransaction = autoCommit && pendingSaves.size() + pendingDeletes.size() > 1;
+	    try {
+	        if (ownTransaction || (!autoCommit && !database.getTransaction().isActive()))
+	            connection.configTransaction();
+	        for (ODocument deleted : pendingDeletes)
+	            deleted.delete();
+	        for (ODocument saved : pendingSaves)
+	            saved.save();
+	        if (ownTransaction)
+	            connection.commitImpl();
+	    } catch (RuntimeException e) {
+	        if (ownTransaction)
+	            connection.rollabackImpl();
+	        throw new SQLException(ErrorMessages.get("ResultSet.writeRowsFailed", 
+	                pendingSaves.size() + pendingDeletes.size()), e);
+	    }
+	    if (autoCommit) {
+	        connection.removePendingResultSet(this);
+	    } else {
+	        //the result set stays known to the connection until the end of its transaction
+	        uncommittedRows.addAll(pendingSaves);
+	        uncommittedRows.addAll(pendingDeletes);
+	        connection.addPendingResultSet(this);
+	    }
+	    pendingSaves.clear();
+	    pendingDeletes.clear();
+	}
+
+	/**
+	 * Forgets the rows written to the transaction of the connection, which has been
+	 * committed.
+	 */
+	void transactionCommitted() {
+	    if (pendingSaves == null)
+	        return;
+	    uncommittedRows.clear();
+	    if (pendingSaves.isEmpty() && pendingDeletes.isEmpty())
+	        statement.connection.removePendingResultSet(this);
+	}
+
+	/**
+	 * Drops the rows changed through this result set that have not been committed,
+	 * loading again their documents, because the transaction has been rolled back.
+	 */
+	void discardPendingRows() {
+	    if (pendingSaves == null)
+	        return;
+	    OrientJdbcDatabaseBinding.ensureBound(database);
+	    Iterator<Map.Entry<Integer, ODocument>> rows = changedRows.entrySet().iterator();
+	    while (rows.hasNext()) {
+	        Map.Entry<Integer, ODocument> row = rows.next();
+	        ODocument changed = row.getValue();
+	        if (pendingSaves.contains(changed) || pendingDeletes.contains(changed)
+	                || uncommittedRows.contains(changed)) {
+	            updatedRows.clear(row.getKey());
+	            deletedRows.clear(row.getKey());
+	            rows.remove();
+	            try {
+	                changed.reload(null, true);
+	            } catch (RuntimeException e) {
+	                //the row keeps its values
+	            }
+	        }
+	    }
+	    pendingSaves.clear();
+	    pendingDeletes.clear();
+	    uncommittedRows.clear();
+	    statement.connection.removePendingResultSet(this);
 	}
 
 	public int findColumn(String columnLabel) throws SQLException {
 	    if (closed)
 	        throw new SQLException(ErrorMessages.get("ResultSet.findColumnInClosedObject"));
-		int column = 0;
-		int i = 0;
-		while (i < (fieldNames.length - 1) && column == 0) {
-			if (fieldNames[i].equals(columnLabel)) column = i + 1;
-			else i++;
-		}
-		if (column == 0)
+		int index = columnIndex == null ? -1 : columnIndex.indexOf(columnLabel);
+		if (index < 0)
 		    throw new SQLException(ErrorMessages.get("ResultSet.missingColumnLabel", columnLabel));
-		return column;
+		return index + 1;
 	}
 
 	private int getFieldIndex(int columnIndex) throws SQLException {
@@ -396,8 +1024,8 @@ public class OrientJdbcResultSet implements ResultSet {
             throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject",BigDecimal.class.getName(),columnLabel));
 		currentColumnLabel = columnLabel;
 	    try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-	        return document.field(columnLabel, BigDecimal.class);
+			OrientJdbcDatabaseBinding.ensureBound(database);
+	        return getField(columnLabel, BigDecimal.class);
 	    } catch (Exception e) {
 	        throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, BigDecimal.class.getName(), cursor + 1),e);
 	    }
@@ -412,8 +1040,8 @@ public class OrientJdbcResultSet implements ResultSet {
             throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject",BigDecimal.class.getName(),columnLabel));
 		currentColumnLabel = columnLabel;
         try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-            BigDecimal originalValue = document.field(columnLabel, BigDecimal.class);
+			OrientJdbcDatabaseBinding.ensureBound(database);
+            BigDecimal originalValue = getField(columnLabel, BigDecimal.class);
             if (originalValue == null)
                 return null;
             if (originalValue.scale() == scale)
@@ -455,9 +1083,9 @@ public class OrientJdbcResultSet implements ResultSet {
 	}
 	
 	private Blob getOrientBlob (String columnLabel) {
-		ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
+		OrientJdbcDatabaseBinding.ensureBound(database);
 		currentColumnLabel = columnLabel;
-		Object value = document.field(columnLabel);
+		Object value = getField(columnLabel);
 		if (value instanceof ORecordBytes) {
 			return new OrientBlob((ORecordBytes) value);
 		}
@@ -469,7 +1097,7 @@ public class OrientJdbcResultSet implements ResultSet {
 			List<ORecordBytes> binaryRecordList = new ArrayList<ORecordBytes>(list.size());
 			while (iterator.hasNext()) {
 				OIdentifiable listElement = iterator.next();
-				ORecordBytes ob = document.getDatabase().load(listElement.getIdentity());
+				ORecordBytes ob = database.load(listElement.getIdentity());
 				binaryRecordList.add(ob);
 			}
 			return new OrientBlob(binaryRecordList);
@@ -485,10 +1113,11 @@ public class OrientJdbcResultSet implements ResultSet {
 	public boolean getBoolean(String columnLabel) throws SQLException {
 		if (closed)
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", Boolean.class.getName(), columnLabel));
-		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			return (Boolean) document.field(columnLabel, OType.BOOLEAN);
+			if (columnar != null)
+				return getColumnarBoolean(columnLabel);
+			Object value = getPrimitiveField(columnLabel);
+			return value != null && toBoolean(value);
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, Boolean.class.getName(), cursor + 1),e);
 		}
@@ -503,10 +1132,11 @@ public class OrientJdbcResultSet implements ResultSet {
 	public byte getByte(String columnLabel) throws SQLException {
 		if (closed)
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", Byte.class.getName(), columnLabel));
-		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			return (Byte) document.field(columnLabel, OType.BYTE);
+			if (columnar != null)
+				return (byte) getColumnarLong(columnLabel);
+			Object value = getPrimitiveField(columnLabel);
+			return value == null ? 0 : toNumber(value).byteValue();
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, Byte.class.getName(), cursor + 1),e);
 		}
@@ -521,13 +1151,13 @@ public class OrientJdbcResultSet implements ResultSet {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", "byte[]", columnLabel));
 		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			Object value = document.field(columnLabel);
+			OrientJdbcDatabaseBinding.ensureBound(database);
+			Object value = getField(columnLabel);
 			if (value == null)
 				return null;
 			if (value instanceof ORecordBytes) 
 				return ((ORecordBytes) value).toStream();
-			return document.field(columnLabel, OType.BINARY);
+			return getField(columnLabel, OType.BINARY);
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, "byte[]", cursor + 1),e);
 		}
@@ -569,8 +1199,8 @@ public class OrientJdbcResultSet implements ResultSet {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", Date.class.getName(), columnLabel));
 		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			java.util.Date date = document.field(columnLabel, OType.DATETIME);
+			OrientJdbcDatabaseBinding.ensureBound(database);
+			java.util.Date date = getField(columnLabel, OType.DATETIME);
 			return new Date(date.getTime());
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, Date.class.getName(), cursor + 1),e);
@@ -589,9 +1219,9 @@ public class OrientJdbcResultSet implements ResultSet {
 			throw new SQLException(ErrorMessages.get("ResultSet.calendarIsNull", columnLabel, cursor + 1));
 		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
+			OrientJdbcDatabaseBinding.ensureBound(database);
 			
-			java.util.Date date = document.field(columnLabel, OType.DATETIME);
+			java.util.Date date = getField(columnLabel, OType.DATETIME);
 			if (date == null) return null;
 			cal.setTimeInMillis(date.getTime());
 			return new Date(cal.getTimeInMillis());
@@ -607,10 +1237,11 @@ public class OrientJdbcResultSet implements ResultSet {
 	public double getDouble(String columnLabel) throws SQLException {
 		if (closed)
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", Double.class.getName(), columnLabel));
-		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			return (Double) document.field(columnLabel, OType.DOUBLE);
+			if (columnar != null)
+				return getColumnarDouble(columnLabel);
+			Object value = getPrimitiveField(columnLabel);
+			return value == null ? 0 : toNumber(value).doubleValue();
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, Double.class.getName() , cursor + 1),e);
 		}
@@ -635,10 +1266,11 @@ public class OrientJdbcResultSet implements ResultSet {
 	public float getFloat(String columnLabel) throws SQLException {
 		if (closed)
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", Float.class.getName(), columnLabel));
-		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			return (Float) (document.field(columnLabel, OType.FLOAT));
+			if (columnar != null)
+				return (float) getColumnarDouble(columnLabel);
+			Object value = getPrimitiveField(columnLabel);
+			return value == null ? 0 : toNumber(value).floatValue();
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, Float.class.getName() , cursor + 1),e);
 		}
@@ -657,10 +1289,11 @@ public class OrientJdbcResultSet implements ResultSet {
 	public int getInt(String columnLabel) throws SQLException {
 		if (closed)
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", Integer.class.getName(), columnLabel));
-		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			return (Integer) document.field(columnLabel, OType.INTEGER);
+			if (columnar != null)
+				return (int) getColumnarLong(columnLabel);
+			Object value = getPrimitiveField(columnLabel);
+			return value == null ? 0 : toNumber(value).intValue();
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, Integer.class.getName() , cursor + 1),e);
 		}
@@ -673,10 +1306,11 @@ public class OrientJdbcResultSet implements ResultSet {
 	public long getLong(String columnLabel) throws SQLException {
 		if (closed)
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", Long.class.getName(), columnLabel));
-		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			return (Long) document.field(columnLabel, OType.LONG);
+			if (columnar != null)
+				return getColumnarLong(columnLabel);
+			Object value = getPrimitiveField(columnLabel);
+			return value == null ? 0 : toNumber(value).longValue();
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, Long.class.getName() , cursor + 1),e);
 		}
@@ -715,15 +1349,15 @@ public class OrientJdbcResultSet implements ResultSet {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", Object.class.getName(), columnLabel));
 		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-	    	if (RID_COLUMN_NAME.equals(columnLabel)) {
-	    		ORID rid = document.field(columnLabel, ORID.class);
+			OrientJdbcDatabaseBinding.ensureBound(database);
+	    	if (RID_COLUMN_NAME.equalsIgnoreCase(columnLabel)) {
+	    		ORID rid = getField(columnLabel, ORID.class);
 	    		if (rid == null)
-	    			return document.getIdentity();
+	    			return getIdentity();
 	    		else
 	    			return rid;
 	    	}
-			Object value = document.field(columnLabel);
+			Object value = getField(columnLabel);
 			if (value == null)
 				return null;
 			else {
@@ -731,6 +1365,7 @@ public class OrientJdbcResultSet implements ResultSet {
 				// of ODocument
 				if (value instanceof ORecordLazyMultiValue) {
 					ORecordLazyMultiValue lazyRecord = (ORecordLazyMultiValue) value;
+					loadLinkedRecords(toFieldName(columnLabel), lazyRecord);
 					lazyRecord.convertLinks2Records();
 					return lazyRecord;
 				} else return value;
@@ -740,6 +1375,161 @@ public class OrientJdbcResultSet implements ResultSet {
 		}
 	}
 
+	/**
+	 * Loads in one query the records linked by the given field of the rows from the current
+	 * one to the end of the fetch window, unless they have already been loaded, and puts the
+	 * records linked by the current row in the level-1 cache of the database, where they are
+	 * found when the links are converted to records. A record linked by many rows is loaded
+	 * only once, and the records linked only by the rows of the previous window are dropped.
+	 * The links of a streamed result set are left to the conversion, since the loader
+	 * thread uses the database meanwhile.
+	 */
+	private void loadLinkedRecords(String fieldName, ORecordLazyMultiValue value) {
+	    if (stream != null)
+	        return;
+	    if (linkedRecords == null) {
+	        linkedRecords = new HashMap<String, Map<ORID, ORecordInternal<?>>>();
+	        linkWindows = new HashMap<String, int[]>();
+	    }
+	    Map<ORID, ORecordInternal<?>> loaded = linkedRecords.get(fieldName);
+	    int[] window = linkWindows.get(fieldName);
+	    if (window == null || cursor < window[0] || cursor >= window[1]) {
+	        Map<ORID, ORecordInternal<?>> previous = loaded;
+	        loaded = new HashMap<ORID, ORecordInternal<?>>();
+	        Set<ORID> missing = new LinkedHashSet<ORID>();
+	        if (records == null || columnar != null) {
+	            //the row of a columnar result is the only one available
+	            window = new int[] { cursor, cursor + 1 };
+	            collectLinks(value, previous, loaded, missing);
+	        } else {
+	            int size = fetchSize > 0 && fetchSize < MAX_LINK_WINDOW ? fetchSize : MAX_LINK_WINDOW;
+	            window = new int[] { cursor, Math.min(rowCount, cursor + size) };
+	            for (int row = window[0]; row < window[1]; row++) {
+	                Object rowValue = row == cursor ? value : rowDocument(row).field(fieldName);
+	                if (rowValue instanceof ORecordLazyMultiValue)
+	                    collectLinks((ORecordLazyMultiValue) rowValue, previous, loaded, missing);
+	            }
+	        }
+	        if (previous != null)
+	            for (ORecordInternal<?> record : previous.values())
+	                if (record != null && !loaded.containsKey(record.getIdentity()))
+	                    memory.remove(record);
+	        linkedRecords.put(fieldName, loaded);
+	        linkWindows.put(fieldName, window);
+	        if (!missing.isEmpty())
+	            queryLinkedRecords(missing, loaded);
+	    }
+	    Iterator<OIdentifiable> links = value.rawIterator();
+	    while (links.hasNext()) {
+	        OIdentifiable link = links.next();
+	        if (link instanceof ORID) {
+	            ORecordInternal<?> record = loaded.get(link);
+	            if (record != null)
+	                database.getLevel1Cache().updateRecord(record);
+	        }
+	    }
+	}
+
+	/**
+	 * Adds the records of the given links loaded for the previous window to the ones of
+	 * the new window, and the other links to the missing ones.
+	 */
+	private static void collectLinks(ORecordLazyMultiValue value, Map<ORID, ORecordInternal<?>> previous,
+	        Map<ORID, ORecordInternal<?>> loaded, Set<ORID> missing) {
+	    Iterator<OIdentifiable> links = value.rawIterator();
+	    while (links.hasNext()) {
+	        OIdentifiable link = links.next();
+	        //the elements already converted are records
+	        if (link instanceof ORID && ((ORID) link).isPersistent() && !loaded.containsKey(link)) {
+	            if (previous != null && previous.containsKey(link))
+	                loaded.put((ORID) link, previous.get(link));
+	            else
+	                missing.add((ORID) link);
+	        }
+	    }
+	}
+
+	private void queryLinkedRecords(Set<ORID> rids, Map<ORID, ORecordInternal<?>> loaded) {
+	    StringBuilder sql = new StringBuilder("SELECT FROM [");
+	    boolean first = true;
+	    for (ORID rid : rids) {
+	        if (!first)
+	            sql.append(", ");
+	        sql.append(rid);
+	        first = false;
+	        //a record that is not found is not loaded again
+	        loaded.put(rid, null);
+	    }
+	    sql.append(']');
+	    List<OIdentifiable> found;
+	    try {
+	        found = database.query(new OSQLSynchQuery<OIdentifiable>(sql.toString()));
+	    } catch (RuntimeException e) {
+	        //the links are then loaded one at a time by the conversion
+	        return;
+	    }
+	    for (OIdentifiable record : found) {
+	        if (record instanceof ORecordInternal<?>) {
+	            loaded.put(record.getIdentity(), (ORecordInternal<?>) record);
+	            memory.add((ORecordInternal<?>) record);
+	        }
+	    }
+	}
+
+	/**
+	 * Reads the value of the column converted to the given type (see {@link #getObject(String, Class)}).
+	 */
+	public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+		return getObject(fieldNames[getFieldIndex(columnIndex)], type);
+	}
+
+	/**
+	 * Reads the value of the column converted to the given type. Besides the conversions
+	 * done by OrientDB, a RID can be read as a {@link RowId}, a date as a {@link Timestamp},
+	 * a {@link Date}, a {@link Time} or a {@link Calendar}, an embedded collection as an
+	 * {@link Array} and an embedded document as a {@link Map} of its fields.
+	 * <p>
+	 * The converter of a column is chosen the first time the column is read with a type,
+	 * and then used for all the rows read with the same type.
+	 */
+	public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+		if (closed)
+			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", type == null ? null : type.getName(), columnLabel));
+		if (type == null)
+			throw new SQLException(ErrorMessages.get("ResultSet.typeIsNull", columnLabel, cursor + 1));
+		currentColumnLabel = columnLabel;
+		try {
+			OrientJdbcDatabaseBinding.ensureBound(database);
+			Object value = getField(columnLabel);
+			if (value == null && RID_COLUMN_NAME.equalsIgnoreCase(columnLabel))
+				value = getIdentity();
+			if (value == null)
+				return null;
+			if (value instanceof ORecordLazyMultiValue) {
+				ORecordLazyMultiValue lazyRecord = (ORecordLazyMultiValue) value;
+				loadLinkedRecords(toFieldName(columnLabel), lazyRecord);
+				lazyRecord.convertLinks2Records();
+			}
+			return type.cast(getConverter(columnLabel, type).convert(value));
+		} catch (Exception e) {
+			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, type.getName(), cursor + 1), e);
+		}
+	}
+
+	private OrientJdbcConverter getConverter(String columnLabel, Class<?> type) {
+		int column = columnIndex == null ? -1 : columnIndex.indexOf(columnLabel);
+		if (column < 0)
+			return OrientJdbcConverter.forType(type);
+		if (converters == null)
+			converters = new OrientJdbcConverter[fieldNames.length];
+		OrientJdbcConverter converter = converters[column];
+		if (converter == null || converter.getType() != type) {
+			converter = OrientJdbcConverter.forType(type);
+			converters[column] = converter;
+		}
+		return converter;
+	}
+
 	public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
 		throw new SQLFeatureNotSupportedException();
 	}
@@ -771,10 +1561,10 @@ public class OrientJdbcResultSet implements ResultSet {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", RowId.class.getName(), columnLabel));
 		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-    		ORID rid = document.field(columnLabel, ORID.class);
+			OrientJdbcDatabaseBinding.ensureBound(database);
+    		ORID rid = getField(columnLabel, ORID.class);
     		if (rid == null)
-    			rid = document.getIdentity();
+    			rid = getIdentity();
     		return new OrientRowId(rid);
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, RowId.class.getName(), cursor + 1),e);
@@ -797,10 +1587,11 @@ public class OrientJdbcResultSet implements ResultSet {
 	public short getShort(String columnLabel) throws SQLException {
 		if (closed)
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", Short.class.getName(), columnLabel));
-		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			return (Short) document.field(columnLabel, OType.SHORT);
+			if (columnar != null)
+				return (short) getColumnarLong(columnLabel);
+			Object value = getPrimitiveField(columnLabel);
+			return value == null ? 0 : toNumber(value).shortValue();
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, Short.class.getName(), cursor + 1),e);
 		}
@@ -815,8 +1606,8 @@ public class OrientJdbcResultSet implements ResultSet {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", String.class.getName(), columnLabel));
 		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			return document.field(columnLabel, OType.STRING);
+			OrientJdbcDatabaseBinding.ensureBound(database);
+			return getField(columnLabel, OType.STRING);
 		} catch (Exception e) {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItem", columnLabel, String.class.getName(), cursor + 1),e);
 		}
@@ -831,8 +1622,8 @@ public class OrientJdbcResultSet implements ResultSet {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", String.class.getName(), columnLabel));
 		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			java.util.Date dateTime = document.field(columnLabel, OType.DATETIME);
+			OrientJdbcDatabaseBinding.ensureBound(database);
+			java.util.Date dateTime = getField(columnLabel, OType.DATETIME);
 			if (dateTime == null)
 				return null;
 			return new Time(dateTime.getTime());
@@ -880,8 +1671,8 @@ public class OrientJdbcResultSet implements ResultSet {
 			throw new SQLException(ErrorMessages.get("ResultSet.getItemByLabelFromClosedObject", String.class.getName(), columnLabel));
 		currentColumnLabel = columnLabel;
 		try {
-			ODatabaseRecordThreadLocal.INSTANCE.set(document.getDatabase());
-			String url = document.field(columnLabel, OType.STRING);
+			OrientJdbcDatabaseBinding.ensureBound(database);
+			String url = getField(columnLabel, OType.STRING);
 			if (url == null)
 				return null;
 			else
@@ -904,15 +1695,37 @@ public class OrientJdbcResultSet implements ResultSet {
 	}
 
 	public void insertRow() throws SQLException {
-	    throw new SQLFeatureNotSupportedException();
+	    if (closed)
+	        throw new SQLException(ErrorMessages.get("ResultSet.insertRowOfClosedObject"));
+	    checkUpdatable();
+	    if (insertDocument == null)
+	        throw new SQLException(ErrorMessages.get("ResultSet.insertRowNotOnInsertRow"));
+	    pendingSaves.add(insertDocument);
+	    //the next row is built from scratch
+	    insertDocument = newInsertDocument();
+	    document = insertDocument;
+	    addPendingRow();
 	}
 
 	public void moveToCurrentRow() throws SQLException {
-	    throw new SQLFeatureNotSupportedException();
+	    if (closed)
+	        throw new SQLException(ErrorMessages.get("ResultSet.moveToCurrentRowOnClosedObject"));
+	    checkUpdatable();
+	    if (insertDocument != null) {
+	        insertDocument = null;
+	        document = cursor == BEFORE_FIRST_INDEX || cursor >= rowCount ? null : rowDocument(cursor);
+	    }
 	}
 
 	public void moveToInsertRow() throws SQLException {
-	    throw new SQLFeatureNotSupportedException();
+	    if (closed)
+	        throw new SQLException(ErrorMessages.get("ResultSet.moveToInsertRowOnClosedObject"));
+	    checkUpdatable();
+	    if (insertDocument == null) {
+	        restoreOriginalValues();
+	        insertDocument = newInsertDocument();
+	        document = insertDocument;
+	    }
 	}
 
 	public void refreshRow() throws SQLException {
@@ -922,6 +1735,9 @@ public class OrientJdbcResultSet implements ResultSet {
 	        throw new SQLException(ErrorMessages.get("ResultSet.refreshRowWhenForwardOnly", cursor + 1));
 	    if (cursor == BEFORE_FIRST_INDEX || cursor == rowCount)
 	        throw new SQLException(ErrorMessages.get("ResultSet.refreshRowOutOfBound", cursor));
+	    //the changes not confirmed by updateRow() are lost
+	    if (originalValues != null)
+	        originalValues.clear();
 	    try {
 	        document.reload();
 	    } catch (ORecordNotFoundException rnfe) {
@@ -934,22 +1750,20 @@ public class OrientJdbcResultSet implements ResultSet {
 	public boolean rowDeleted() throws SQLException {
 	    if (closed)
 	        throw new SQLException(ErrorMessages.get("ResultSet.getRowDeletedFromClosedObject"));
-	    //TODO to be modified if the CONCUR_UPDATABLE
-	    return false;
+	    return deletedRows != null && cursor >= 0 && deletedRows.get(cursor);
 	}
 
 	public boolean rowInserted() throws SQLException {
 	    if (closed)
             throw new SQLException(ErrorMessages.get("ResultSet.getRowInsertedFromClosedObject"));
-        //TODO to be modified if the CONCUR_UPDATABLE
+        //the rows inserted through the result set do not become part of it
         return false;
 	}
 
 	public boolean rowUpdated() throws SQLException {
 	    if (closed)
             throw new SQLException(ErrorMessages.get("ResultSet.getRowUpdatedFromClosedObject"));
-        //TODO to be modified if the CONCUR_UPDATABLE
-        return false;
+        return updatedRows != null && cursor >= 0 && updatedRows.get(cursor);
 	}
 
 	public void setFetchDirection(int direction) throws SQLException {
@@ -977,6 +1791,9 @@ public class OrientJdbcResultSet implements ResultSet {
 	    if (rows < 0)
 	        throw new SQLException(ErrorMessages.get("ResultSet.badFetchSize", rows));
 	    fetchSize = rows;
+	    //the buffer of a streamed result set has already been sized
+	    if (stream != null)
+	        return;
 	    //update the rowCount only if the given fetch size is not unlimited AND
 	    //is less than the current row count
 	    if (fetchSize > OrientJdbcConstants.UNLIMITED_FETCH_SIZE && fetchSize < rowCount)
@@ -1016,11 +1833,11 @@ public class OrientJdbcResultSet implements ResultSet {
 	}
 
 	public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateBigDecimal(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
@@ -1072,27 +1889,27 @@ public class OrientJdbcResultSet implements ResultSet {
 	}
 
 	public void updateBoolean(int columnIndex, boolean x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateBoolean(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateBoolean(String columnLabel, boolean x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateByte(int columnIndex, byte x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateByte(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateByte(String columnLabel, byte x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateBytes(int columnIndex, byte[] x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateBytes(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateBytes(String columnLabel, byte[] x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
@@ -1144,43 +1961,43 @@ public class OrientJdbcResultSet implements ResultSet {
 	}
 
 	public void updateDate(int columnIndex, Date x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateDate(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateDate(String columnLabel, Date x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateDouble(int columnIndex, double x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateDouble(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateDouble(String columnLabel, double x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateFloat(int columnIndex, float x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateFloat(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateFloat(String columnLabel, float x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateInt(int columnIndex, int x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateInt(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateInt(String columnLabel, int x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateLong(int columnIndex, long x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateLong(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateLong(String columnLabel, long x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
@@ -1224,35 +2041,35 @@ public class OrientJdbcResultSet implements ResultSet {
 	}
 
 	public void updateNString(int columnIndex, String nString) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateNString(fieldNames[getFieldIndex(columnIndex)], nString);
 	}
 
 	public void updateNString(String columnLabel, String nString) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, nString);
 	}
 
 	public void updateNull(int columnIndex) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateNull(fieldNames[getFieldIndex(columnIndex)]);
 	}
 
 	public void updateNull(String columnLabel) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, null);
 	}
 
 	public void updateObject(int columnIndex, Object x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateObject(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateObject(String columnLabel, Object x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateObject(fieldNames[getFieldIndex(columnIndex)], x, scaleOrLength);
 	}
 
 	public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateRef(int columnIndex, Ref x) throws SQLException {
@@ -1264,7 +2081,17 @@ public class OrientJdbcResultSet implements ResultSet {
 	}
 
 	public void updateRow() throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    if (closed)
+	        throw new SQLException(ErrorMessages.get("ResultSet.updateRowOfClosedObject"));
+	    checkUpdatable();
+	    if (insertDocument != null)
+	        throw new SQLException(ErrorMessages.get("ResultSet.updateInsertRow"));
+	    checkStoredRow();
+	    originalValues.clear();
+	    changedRows.put(cursor, document);
+	    updatedRows.set(cursor);
+	    pendingSaves.add(document);
+	    addPendingRow();
 	}
 
 	public void updateRowId(int columnIndex, RowId x) throws SQLException {
@@ -1284,48 +2111,61 @@ public class OrientJdbcResultSet implements ResultSet {
 	}
 
 	public void updateShort(int columnIndex, short x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateShort(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateShort(String columnLabel, short x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateString(int columnIndex, String x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateString(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateString(String columnLabel, String x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateTime(int columnIndex, Time x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateTime(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateTime(String columnLabel, Time x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+	    updateTimestamp(fieldNames[getFieldIndex(columnIndex)], x);
 	}
 
 	public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
-	    throw new SQLFeatureNotSupportedException();
+	    updateField(columnLabel, x);
 	}
 
 	public boolean wasNull() throws SQLException {
 		if (closed)
 			throw new SQLException(ErrorMessages.get("ResultSet.getWasNullFromClosedObject", currentColumnLabel));
-		return document.field(currentColumnLabel) == null;
+		if (currentColumnLabel == null)
+			return lastValueNull;
+		return getField(currentColumnLabel) == null;
 	}
 
 	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		if (iface == OrientJdbcColumnarResult.class)
+			return columnar != null;
+		if (iface == OrientJdbcResultMemory.class)
+			return true;
 		return ODocument.class.isAssignableFrom(iface);
 	}
 
 	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface == OrientJdbcResultMemory.class)
+			return iface.cast(memory);
+		if (iface == OrientJdbcColumnarResult.class) {
+			if (columnar == null)
+				throw new SQLException(ErrorMessages.get("ResultSet.notColumnar"));
+			return iface.cast(columnar);
+		}
 		try {
 			return iface.cast(document);
 		} catch (ClassCastException e) {
@@ -1334,6 +2174,11 @@ public class OrientJdbcResultSet implements ResultSet {
 	}
 
 	public void cancelRowUpdates() throws SQLException {
+	    if (closed)
+	        throw new SQLException(ErrorMessages.get("ResultSet.cancelRowUpdatesOfClosedObject"));
+	    if (insertDocument != null)
+	        throw new SQLException(ErrorMessages.get("ResultSet.cancelUpdatesOfInsertRow"));
+	    restoreOriginalValues();
 	}
 
 	public void clearWarnings() throws SQLException {
@@ -126,7 +126,7 @@ public class OrientJdbcResultSetMetaData implements ResultSetMetaData {
 
 	public int getColumnType(int column) throws SQLException {
 	    checkColumnIndex(column);
-        ODocument currentRecord = this.resultSet.unwrap(ODocument.class);
+        ODocument currentRecord = this.resultSet.getSchemaDocument();
         if (currentRecord == null)
             return Types.JAVA_OBJECT;
 		String fieldName = fieldNames[column - 1];
@@ -199,7 +199,7 @@ public class OrientJdbcResultSetMetaData implements ResultSetMetaData {
 
 	public String getColumnTypeName(int column) throws SQLException {
 	    checkColumnIndex(column);
-		ODocument currentRecord = this.resultSet.unwrap(ODocument.class);
+		ODocument currentRecord = this.resultSet.getSchemaDocument();
 		if (currentRecord == null) return null;
 		else {
 			OType columnType = currentRecord.fieldType(this.fieldNames[column - 1]);
@@ -218,14 +218,14 @@ public class OrientJdbcResultSetMetaData implements ResultSetMetaData {
 
 	public String getSchemaName(int column) throws SQLException {
 	    checkColumnIndex(column);
-		ODocument currentRecord = this.resultSet.unwrap(ODocument.class);
+		ODocument currentRecord = this.resultSet.getSchemaDocument();
 		if (currentRecord == null) return "";
 		return currentRecord.getDatabase().getName();
 	}
 
 	public String getTableName(int column) throws SQLException {
 	    checkColumnIndex(column);
-		ODocument currentRecord = this.resultSet.unwrap(ODocument.class);
+		ODocument currentRecord = this.resultSet.getSchemaDocument();
 		if (currentRecord == null) return "";
 		else return currentRecord.getSchemaClass().getName();
 	}
@@ -268,7 +268,7 @@ public class OrientJdbcResultSetMetaData implements ResultSetMetaData {
 
 	public boolean isSigned(int column) throws SQLException {
 	    checkColumnIndex(column);
-	    ODocument currentRecord = this.resultSet.unwrap(ODocument.class);
+	    ODocument currentRecord = this.resultSet.getSchemaDocument();
 		if (currentRecord == null) return false;
 		else return this.isANumericColumn(currentRecord.fieldType(fieldNames[column - 1]));
 	}
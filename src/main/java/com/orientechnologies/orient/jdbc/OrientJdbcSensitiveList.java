@@ -0,0 +1,143 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.orientechnologies.orient.core.cache.OLevel1RecordCache;
+import com.orientechnologies.orient.core.cache.OLevel2RecordCache;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+/**
+ * The rows of a scroll-sensitive result set: only the RIDs of the records are kept, while
+ * the documents are loaded from the storage a window at a time as the cursor moves.
+ * <p>
+ * The documents of a window are loaded by a single query, after removing them from the
+ * record caches, so a row shows the changes committed since the query
+ * as soon as it enters the window again; a record deleted meanwhile is read as a
+ * document without fields. The rows that are not stored records,
+ * like the ones of a projection, cannot be loaded again and so they are kept as they are.
+ */
+class OrientJdbcSensitiveList extends OrientJdbcResultList {
+
+    static final int DEFAULT_WINDOW_SIZE = 100;
+
+    private final ODatabaseDocumentTx database;
+    //the RID of each row, or its document if it has no stored record
+    private final List<Object> rows;
+    private final ODocument[] window;
+    private int windowStart;
+
+    /**
+     * @param iDatabase the database the documents are loaded from
+     * @param iWindowSize the number of documents loaded at once
+     */
+    OrientJdbcSensitiveList(ODatabaseDocumentTx iDatabase, int iWindowSize) {
+        this.database = iDatabase;
+        this.rows = new ArrayList<Object>();
+        this.window = new ODocument[iWindowSize > 0 ? iWindowSize : DEFAULT_WINDOW_SIZE];
+        this.windowStart = -1;
+    }
+
+    public boolean result(Object iRecord) {
+        ODocument document = (ODocument) iRecord;
+        ORID identity = document.getIdentity();
+        if (identity.isPersistent())
+            rows.add(new ORecordId(identity));
+        else
+            rows.add(document);
+        return true;
+    }
+
+    @Override
+    public ODocument get(int index) {
+        Object row = rows.get(index);
+        if (row instanceof ODocument)
+            return (ODocument) row;
+        if (windowStart < 0 || index < windowStart || index >= windowStart + window.length)
+            loadWindow(index);
+        return window[index - windowStart];
+    }
+
+    private void loadWindow(int index) {
+        //moving backwards the window ends at the requested row, otherwise it starts there
+        if (windowStart >= 0 && index < windowStart)
+            windowStart = Math.max(0, index - window.length + 1);
+        else
+            windowStart = index;
+        Map<ORID, ODocument> loaded = load(Math.min(window.length, rows.size() - windowStart));
+        for (int i = 0; i < window.length; i++) {
+            int row = windowStart + i;
+            if (row < rows.size() && rows.get(row) instanceof ORID) {
+                ODocument document = loaded.get(rows.get(row));
+                window[i] = document != null ? document : new ODocument();
+            } else
+                window[i] = null;
+        }
+    }
+
+    /**
+     * @return the documents of the stored records of the given number of rows from the
+     * start of the window, by RID
+     */
+    private Map<ORID, ODocument> load(int count) {
+        Map<ORID, ODocument> loaded = new HashMap<ORID, ODocument>(count * 2);
+        OLevel1RecordCache cache = database.getLevel1Cache();
+        OLevel2RecordCache sharedCache = database.getStorage().getLevel2Cache();
+        StringBuilder sql = new StringBuilder("SELECT FROM [");
+        boolean first = true;
+        for (int row = windowStart; row < windowStart + count; row++) {
+            if (rows.get(row) instanceof ORID) {
+                ORID identity = (ORID) rows.get(row);
+                //the query would return the cached documents, which may be stale
+                cache.freeRecord(identity);
+                sharedCache.freeRecord(identity);
+                if (!first)
+                    sql.append(", ");
+                sql.append(identity);
+                first = false;
+            }
+        }
+        if (first)
+            return loaded;
+        sql.append(']');
+        List<ODocument> documents = database.query(new OSQLSynchQuery<ODocument>(sql.toString()));
+        for (ODocument document : documents)
+            loaded.put(document.getIdentity(), document);
+        return loaded;
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    void close() {
+        rows.clear();
+        Arrays.fill(window, null);
+        windowStart = -1;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.orientechnologies.common.io.OIOException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Random access list of the documents of a query result that keeps in the heap only the
+ * documents whose serialized size fits in a threshold.
+ * <p>
+ * The following documents are serialized into a temporary file, that is read through
+ * memory-mapped segments. The offset of each spilled document is kept in an index, so
+ * any row is read in constant time: a spilled document is deserialized again every time
+ * it is read. The list is filled as the listener of an asynchronous query and it must
+ * be closed to delete the temporary file.
+ */
+class OrientJdbcSpillingList extends OrientJdbcResultList {
+
+    private static final String TEMP_FILE_PREFIX = "orientdb-jdbc-";
+    private static final String TEMP_FILE_SUFFIX = ".rows";
+
+    //the maximum size of a mapped segment, unless a single document is bigger
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    //the identity of a spilled document: cluster id and cluster position
+    private static final int HEADER_SIZE = 4 + 8;
+
+    private final long threshold;
+    private final List<ODocument> memoryRows;
+    private long memoryBytes;
+
+    private File file;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private long fileSize;
+    private int spilledRows;
+    //offset in the file and segment of each spilled document
+    private long[] offsets;
+    private int[] rowSegments;
+    private long[] segmentStarts;
+    private int segmentCount;
+    private MappedByteBuffer[] segments;
+
+    /**
+     * @param iThreshold the maximum number of bytes of serialized documents kept in the heap
+     */
+    OrientJdbcSpillingList(long iThreshold) {
+        this.threshold = iThreshold;
+        this.memoryRows = new ArrayList<ODocument>();
+    }
+
+    public boolean result(Object iRecord) {
+        add((ODocument) iRecord);
+        return true;
+    }
+
+    @Override
+    public boolean add(ODocument document) {
+        if (channel == null) {
+            byte[] content = document.toStream();
+            if (memoryBytes + content.length <= threshold) {
+                memoryBytes += content.length;
+                memoryRows.add(document);
+                return true;
+            }
+            spill(document, content);
+        } else
+            spill(document, document.toStream());
+        return true;
+    }
+
+    private void spill(ODocument document, byte[] content) {
+        try {
+            if (channel == null)
+                openFile();
+            long rowSize = HEADER_SIZE + content.length;
+            //a new segment starts when the document does not fit in the current one
+            if (fileSize > segmentStarts[segmentCount - 1] && fileSize + rowSize - segmentStarts[segmentCount - 1] > SEGMENT_SIZE)
+                addSegment(fileSize);
+            ORID identity = document.getIdentity();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(identity.getClusterId()).putLong(identity.getClusterPosition()).flip();
+            ByteBuffer body = ByteBuffer.wrap(content);
+            long position = fileSize;
+            while (header.hasRemaining())
+                position += channel.write(header, position);
+            while (body.hasRemaining())
+                position += channel.write(body, position);
+            if (spilledRows == offsets.length) {
+                offsets = Arrays.copyOf(offsets, spilledRows * 2);
+                rowSegments = Arrays.copyOf(rowSegments, spilledRows * 2);
+            }
+            offsets[spilledRows] = fileSize;
+            rowSegments[spilledRows] = segmentCount - 1;
+            spilledRows++;
+            fileSize = position;
+        } catch (IOException e) {
+            throw new OIOException("Cannot write the row " + size() + " to the file " + file, e);
+        }
+    }
+
+    private void openFile() throws IOException {
+        file = File.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+        offsets = new long[1024];
+        rowSegments = new int[1024];
+        segmentStarts = new long[4];
+        segments = new MappedByteBuffer[4];
+        addSegment(0);
+    }
+
+    private void addSegment(long start) {
+        if (segmentCount == segmentStarts.length) {
+            segmentStarts = Arrays.copyOf(segmentStarts, segmentCount * 2);
+            segments = Arrays.copyOf(segments, segmentCount * 2);
+        }
+        segmentStarts[segmentCount++] = start;
+    }
+
+    @Override
+    public ODocument get(int index) {
+        if (index < memoryRows.size())
+            return memoryRows.get(index);
+        int row = index - memoryRows.size();
+        if (row >= spilledRows)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        long end = row + 1 < spilledRows ? offsets[row + 1] : fileSize;
+        int segment = rowSegments[row];
+        ByteBuffer buffer = getSegment(segment, end).duplicate();
+        buffer.position((int) (offsets[row] - segmentStarts[segment]));
+        int clusterId = buffer.getInt();
+        long clusterPosition = buffer.getLong();
+        byte[] content = new byte[(int) (end - offsets[row]) - HEADER_SIZE];
+        buffer.get(content);
+        ODocument document = new ODocument(content);
+        document.setIdentity(clusterId, clusterPosition);
+        return document;
+    }
+
+    /**
+     * @return the given segment mapped at least up to the given offset of the file
+     */
+    private MappedByteBuffer getSegment(int segment, long end) {
+        long start = segmentStarts[segment];
+        MappedByteBuffer mapped = segments[segment];
+        if (mapped == null || start + mapped.capacity() < end) {
+            long segmentEnd = segment + 1 < segmentCount ? segmentStarts[segment + 1] : fileSize;
+            try {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, segmentEnd - start);
+            } catch (IOException e) {
+                throw new OIOException("Cannot map the file " + file, e);
+            }
+            segments[segment] = mapped;
+        }
+        return mapped;
+    }
+
+    @Override
+    public int size() {
+        return memoryRows.size() + spilledRows;
+    }
+
+    /**
+     * @return <code>true</code> if some documents have been written to the temporary file
+     */
+    boolean isSpilled() {
+        return spilledRows > 0;
+    }
+
+    /**
+     * Releases the documents and deletes the temporary file.
+     */
+    @Override
+    void close() {
+        memoryRows.clear();
+        spilledRows = 0;
+        segments = null;
+        if (channel != null) {
+            try {
+                channel.close();
+                randomAccessFile.close();
+            } catch (IOException e) {
+                //the file is deleted anyway
+            }
+            channel = null;
+            //a mapped file cannot be deleted on some platforms until the mapping is collected
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+}
@@ -27,14 +27,19 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.orientechnologies.common.io.OIOException;
 import com.orientechnologies.orient.core.command.OCommandRequest;
-import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.command.OCommandResultListener;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.exception.OQueryParsingException;
+import com.orientechnologies.orient.core.fetch.OFetchHelper;
+import com.orientechnologies.orient.core.intent.OIntentMassiveInsert;
+import com.orientechnologies.orient.core.query.OQuery;
 import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.core.sql.OCommandExecutorSQLSelect;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.orient.jdbc.common.OrientJdbcConstants;
 
 /**
  * TODO Add authors
@@ -51,9 +56,13 @@ public class OrientJdbcStatement implements Statement {
     protected static final int DEFAULT_MAX_FIELD_SIZE = NO_LIMIT;
     protected static final int DEFAULT_MAX_ROWS = NO_LIMIT;
     protected static final int DEFAULT_QUERY_TIMEOUT = NO_LIMIT;
+    //the value of OCommandRequest.getLimit() meaning that there is no limit
+    private static final int UNLIMITED_REQUEST_ROWS = -1;
+    //the number of rows buffered by a result set streamed because its result was too large
+    protected static final int LIMITED_STREAMING_FETCH_SIZE = 100;
     
     
-	protected final OrientJdbcConnection connection;
+	protected OrientJdbcConnection connection;
 	protected final ODatabaseDocumentTx database;
 
 	protected OCommandRequest statement;
@@ -71,6 +80,12 @@ public class OrientJdbcStatement implements Statement {
 	protected int preferredResultSetMaxRows;
 	
 	protected int updateCount;
+	protected boolean poolable;
+	protected boolean columnar;
+	protected String fetchPlan;
+	protected long maxResultBytes;
+	//the last query executed, which tells the columns of its result
+	protected OrientJdbcParsedStatement parsedQuery;
 	
 	public OrientJdbcStatement(final OrientJdbcConnection iConnection, boolean readOnly) throws SQLException {
 		this(iConnection, OrientJdbcResultSet.DEFAULT_TYPE, 
@@ -118,37 +133,51 @@ public class OrientJdbcStatement implements Statement {
 		this.preferredResultSetFetchDirection = OrientJdbcResultSet.DEFAULT_FETCH_DIRECTION;
 		this.preferredResultSetMaxRows = DEFAULT_MAX_ROWS;
 		this.preferredResultSetFetchSize = OrientJdbcResultSet.DEFAULT_FETCH_SIZE;
+		this.fetchPlan = connection.getFetchPlan();
+		this.maxResultBytes = connection.getMaxResultBytes();
 
         batches = new ArrayList<OCommandSQL>();
 		this.updateCount = NO_UPDATE_RESULT;
 		this.closed = false;
 		this.statement = null;
+		this.poolable = false;
 	}
 
 	@SuppressWarnings("unchecked")
     public boolean execute(final String sql) throws SQLException {
 	    if (closed)
 	        throw new SQLException(ErrorMessages.get("Statement.executeStatementOnClosedObject",MESSAGE_FORMAT_CHOICE_INDEX, sql));
-	    if (readOnly && !sql.startsWith(OCommandExecutorSQLSelect.KEYWORD_SELECT))
+	    OrientJdbcParsedStatement parsed = connection.parseStatement(sql);
+	    if (readOnly && !parsed.isQuery())
 	    	throw new SQLException(ErrorMessages.get("Statement.executeUpdateOnReadOnlyConnection", sql));
 		if ("".equals(sql))
 		    throw new SQLException(ErrorMessages.get("Statement.executeEmptyString"));
-	    ODatabaseRecordThreadLocal.INSTANCE.set(database);
-		statement = new OCommandSQL(sql);
+	    checkDatabaseAvailable(sql);
+	    OrientJdbcDatabaseBinding.bind(database);
+	    //the columns of a result of any other command are the fields of its documents
+	    parsedQuery = parsed.isQuery() ? parsed : null;
+	    if (parsed.isQuery()) {
+	        //only a query request lets the storage stop at the maximum number of rows
+	        OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<ODocument>(sql);
+	        applyMaxRows(query);
+	        applyFetchPlan(query);
+	        statement = query;
+	    } else
+	        statement = parsed.getCommand();
 		
 		try {
+		    if (parsed.isQuery() && isLimitEnabled()) {
+		        resultSet = executeLimitedQuery(sql);
+		        updateCount = NO_UPDATE_RESULT;
+		        return true;
+		    }
 
-			Object rawResult = database.command(statement).execute();
+			Object rawResult = parsed.isQuery() && isListingEnabled() ? loadListedQuery(sql) : database.command(statement).execute();
 
 			if (rawResult instanceof List<?>) {
 				List<ODocument> documents = (List<ODocument>) rawResult;
 				
-				if (preferredResultSetMaxRows == NO_LIMIT)
-                    resultSet = new OrientJdbcResultSet(this, documents, resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
-				else if (documents.size() > preferredResultSetMaxRows)
-				    resultSet = new OrientJdbcResultSet(this, documents.subList(0, preferredResultSetMaxRows), resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
-				else
-					resultSet = new OrientJdbcResultSet(this, documents, resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
+				resultSet = new OrientJdbcResultSet(this, truncateToMaxRows(documents), resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
 				
 				resultSet.setFetchDirection(preferredResultSetFetchDirection);
 								
@@ -181,20 +210,32 @@ public class OrientJdbcStatement implements Statement {
         if ("".equals(sql))
             throw new SQLException(ErrorMessages.get("Statement.executeEmptyString"));
         
-        ODatabaseRecordThreadLocal.INSTANCE.set(database);
+        checkDatabaseAvailable(sql);
+        OrientJdbcDatabaseBinding.bind(database);
         
-        OSQLSynchQuery<ODocument> queryTMP = new OSQLSynchQuery<ODocument>(sql);
-        statement = new OSQLSynchQuery<ODocument>(sql);
+        parsedQuery = connection.parseStatement(sql);
+        OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<ODocument>(sql);
+        applyMaxRows(query);
+        applyFetchPlan(query);
+        statement = query;
+        if (isStreamingEnabled()) {
+            updateCount = NO_UPDATE_RESULT;
+            resultSet = executeStreamingQuery(sql);
+            return resultSet;
+        }
 		try {
-	        List<ODocument> documents = database.query(queryTMP);
+	        if (isLimitEnabled()) {
+	            updateCount = NO_UPDATE_RESULT;
+	            resultSet = executeLimitedQuery(sql);
+	            return resultSet;
+	        }
+	        List<ODocument> documents;
+	        if (isListingEnabled())
+	            documents = loadListedQuery(sql);
+	        else
+	            documents = database.query(query);
 			updateCount = NO_UPDATE_RESULT;
-			if (preferredResultSetMaxRows == NO_LIMIT)
-                resultSet = new OrientJdbcResultSet(this, documents, resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
-            else if (documents.size() > preferredResultSetMaxRows)
-                resultSet = new OrientJdbcResultSet(this, documents.subList(0, preferredResultSetMaxRows), resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
-            else
-                resultSet.setFetchDirection(preferredResultSetFetchDirection);
-			resultSet.setFetchDirection(preferredResultSetFetchDirection);
+			resultSet = new OrientJdbcResultSet(this, truncateToMaxRows(documents), resultSetType, resultSetConcurrency, resultSetHoldability, preferredResultSetFetchDirection, true);
 			return resultSet;
 
 		} catch (OQueryParsingException e) {
@@ -206,17 +247,19 @@ public class OrientJdbcStatement implements Statement {
 	public int executeUpdate(final String sql) throws SQLException {
         if (closed)
             throw new SQLException(ErrorMessages.get("Statement.executeStatementOnClosedObject", MESSAGE_FORMAT_CHOICE_INDEX, sql));
-	    if (readOnly && !sql.startsWith(OCommandExecutorSQLSelect.KEYWORD_SELECT))
+	    OrientJdbcParsedStatement parsed = connection.parseStatement(sql);
+	    if (readOnly && !parsed.isQuery())
 	    	throw new SQLException(ErrorMessages.get("Statement.executeUpdateOnReadOnlyConnection", sql));
 	    if ("".equals(sql))
             throw new SQLException(ErrorMessages.get("Statement.executeEmptyString"));
-        statement = new OCommandSQL(sql);
+        statement = parsed.getCommand();
 		executeUpdate();
 		return updateCount;
 	}
 	
 	protected void executeUpdate(Object... args) throws SQLException {
-        ODatabaseRecordThreadLocal.INSTANCE.set(database);
+        checkDatabaseAvailable(statement.toString());
+        OrientJdbcDatabaseBinding.bind(database);
         resultSet = null;
 		try {
 	        Object rawResult = database.command(statement).execute(args);
@@ -237,6 +280,206 @@ public class OrientJdbcStatement implements Statement {
 		}
 	}
 	
+	/**
+	 * Passes the maximum number of rows down to the given request, so that the storage
+	 * stops the scan as soon as enough records have been found instead of loading all
+	 * of them. OrientDB keeps the smaller one between this limit and the LIMIT clause
+	 * of the query.
+	 */
+	protected void applyMaxRows (OCommandRequest request) {
+	    if (preferredResultSetMaxRows == NO_LIMIT)
+	        request.setLimit(UNLIMITED_REQUEST_ROWS);
+	    else
+	        request.setLimit(preferredResultSetMaxRows);
+	}
+	
+	/**
+	 * Sets the fetch plan of the statement to the given query, so that the linked records
+	 * it names are loaded along with the result (by a remote server, in the same response)
+	 * instead of one at a time when the links are read.
+	 */
+	protected void applyFetchPlan (OQuery<?> query) {
+	    query.setFetchPlan(fetchPlan);
+	}
+	
+	/**
+	 * Cuts the given result to the maximum number of rows. This is still needed when the
+	 * query has an ORDER BY clause, because in this case OrientDB sorts the whole result
+	 * and ignores the limit of the request.
+	 */
+	protected List<ODocument> truncateToMaxRows (List<ODocument> documents) {
+	    if (preferredResultSetMaxRows != NO_LIMIT && documents.size() > preferredResultSetMaxRows)
+	        return documents.subList(0, preferredResultSetMaxRows);
+	    else
+	        return documents;
+	}
+	
+	/**
+	 * Tells if the result of a query can be streamed instead of being fully loaded:
+	 * this happens when the result set is forward-only and read-only and a fetch size has been set.
+	 * In this case the fetch size is the number of rows buffered ahead of the consumer.
+	 */
+	protected boolean isStreamingEnabled () {
+	    return isStreamable() && preferredResultSetFetchSize != OrientJdbcConstants.UNLIMITED_FETCH_SIZE;
+	}
+	
+	/**
+	 * Tells if the result sets of the statement are forward-only and read-only, so that
+	 * their rows can be read while they are consumed.
+	 */
+	protected boolean isStreamable () {
+	    return !columnar && resultSetType == ResultSet.TYPE_FORWARD_ONLY &&
+	            resultSetConcurrency == ResultSet.CONCUR_READ_ONLY &&
+	            preferredResultSetFetchDirection == ResultSet.FETCH_FORWARD;
+	}
+	
+	/**
+	 * Tells if the documents of a fully loaded result have to be counted against the
+	 * maximum result size of the statement. The results read through a
+	 * {@link OrientJdbcResultList} are not counted, as they do not keep all their rows
+	 * in the heap.
+	 */
+	protected boolean isLimitEnabled () {
+	    return maxResultBytes > 0 && !isListingEnabled();
+	}
+	
+	/**
+	 * Loads the result of a query counting the bytes of its documents, and stops the scan
+	 * as soon as they exceed the maximum result size of the statement. The query is then
+	 * streamed if the result set is forward-only and read-only, otherwise it fails with
+	 * the SQL state {@link XOpenSqlStates#PROGRAM_LIMIT_EXCEEDED}.
+	 */
+	protected OrientJdbcResultSet executeLimitedQuery (final String sql, Object... args) throws SQLException {
+	    final OrientJdbcResultMemory memory = new OrientJdbcResultMemory(maxResultBytes);
+	    final List<ODocument> documents = new ArrayList<ODocument>();
+	    OSQLAsynchQuery<ODocument> query = new OSQLAsynchQuery<ODocument>(sql, new OCommandResultListener() {
+	        public boolean result(Object iRecord) {
+	            ODocument document = (ODocument) iRecord;
+	            //the query executor ignores the value returned by this method, so the
+	            //only way to stop the scan is to abort it
+	            if (!memory.add(document))
+	                throw new ResultLimitExceeded();
+	            documents.add(document);
+	            return true;
+	        }
+	    });
+	    applyMaxRows(query);
+	    applyFetchPlan(query);
+	    try {
+	        database.query(query, args);
+	    } catch (RuntimeException e) {
+	        //the exception that stopped the scan may have been wrapped by the executor
+	        if (!memory.isLimitExceeded())
+	            throw e;
+	    }
+	    if (!memory.isLimitExceeded())
+	        return new OrientJdbcResultSet(this, truncateToMaxRows(documents), resultSetType, resultSetConcurrency, 
+	                resultSetHoldability, preferredResultSetFetchDirection, true, memory);
+	    documents.clear();
+	    if (!isStreamable())
+	        throw new SQLException(ErrorMessages.get("Statement.maxResultBytesExceeded", maxResultBytes, sql), 
+	                XOpenSqlStates.PROGRAM_LIMIT_EXCEEDED);
+	    int fetchSize = preferredResultSetFetchSize == OrientJdbcConstants.UNLIMITED_FETCH_SIZE ? 
+	            LIMITED_STREAMING_FETCH_SIZE : preferredResultSetFetchSize;
+	    return streamQuery(sql, fetchSize, args);
+	}
+	
+	/**
+	 * Tells if the result of a query that is fully loaded has to be written to a temporary
+	 * file past the spill threshold of the connection. A result in columnar mode is never
+	 * spilled, as its columns are decoded in memory anyway.
+	 */
+	protected boolean isSpillingEnabled () {
+	    return connection.getSpillThreshold() > 0 && !columnar;
+	}
+
+	/**
+	 * Tells if the result of a query that is fully loaded has to be read through a
+	 * {@link OrientJdbcResultList}: the RIDs of a scroll-sensitive result set, whose
+	 * documents are loaded a window at a time, or a result that may be spilled.
+	 * A result in columnar mode is decoded at once, so it is never scroll-sensitive.
+	 */
+	protected boolean isListingEnabled () {
+	    return (resultSetType == ResultSet.TYPE_SCROLL_SENSITIVE && !columnar) || isSpillingEnabled();
+	}
+
+	/**
+	 * Loads the result of a query into a scroll-sensitive list, when the result set type
+	 * asks for it, otherwise into a list that keeps in the heap the rows up to the spill
+	 * threshold of the connection and writes the following ones to a temporary file.
+	 */
+	protected List<ODocument> loadListedQuery (final String sql, Object... args) throws SQLException {
+	    OrientJdbcResultList documents;
+	    if (resultSetType == ResultSet.TYPE_SCROLL_SENSITIVE && !columnar)
+	        documents = new OrientJdbcSensitiveList(database, preferredResultSetFetchSize);
+	    else
+	        documents = new OrientJdbcSpillingList(connection.getSpillThreshold());
+	    OSQLAsynchQuery<ODocument> query = new OSQLAsynchQuery<ODocument>(sql, documents);
+	    applyMaxRows(query);
+	    applyFetchPlan(query);
+	    try {
+	        database.query(query, args);
+	        return documents;
+	    } catch (OIOException e) {
+	        documents.close();
+	        throw new SQLException(ErrorMessages.get("ResultSet.spillFailed", sql), e);
+	    } catch (RuntimeException e) {
+	        documents.close();
+	        throw e;
+	    }
+	}
+
+	/**
+	 * Executes a query whose result is not fully loaded in memory: plain scans of a
+	 * class are read one page at a time, any other query is streamed by a loader thread.
+	 * When the connection prefetches rows, the pages are loaded by a loader thread too.
+	 */
+	protected OrientJdbcResultSet executeStreamingQuery (final String sql, Object... args) throws SQLException {
+	    return streamQuery(sql, preferredResultSetFetchSize, args);
+	}
+	
+	private OrientJdbcResultSet streamQuery (final String sql, int fetchSize, Object[] args) throws SQLException {
+	    //the loader thread of the previous result set would still be using the database
+	    if (resultSet != null)
+	        resultSet.close();
+	    OrientJdbcCursor cursor;
+	    if (args.length == 0 && connection.parseStatement(sql).isPagedScan()) {
+	        cursor = new OrientJdbcPagedCursor(database, sql, fetchSize, preferredResultSetMaxRows, fetchPlan);
+	        if (connection.isPrefetch()) {
+	            OrientJdbcPrefetchingCursor prefetching = new OrientJdbcPrefetchingCursor(database, cursor, 
+	                    sql, fetchSize);
+	            connection.startStreaming(this);
+	            prefetching.open();
+	            cursor = prefetching;
+	        }
+	    } else {
+	        OrientJdbcStreamingCursor stream = new OrientJdbcStreamingCursor(database, sql, 
+	                fetchSize, preferredResultSetMaxRows, fetchPlan, args);
+	        connection.startStreaming(this);
+	        stream.open();
+	        cursor = stream;
+	    }
+	    try {
+	        return new OrientJdbcResultSet(this, cursor, resultSetConcurrency, resultSetHoldability, fetchSize, true);
+	    } catch (SQLException e) {
+	        connection.stopStreaming(this);
+	        throw e;
+	    }
+	}
+
+	/**
+	 * Makes sure that no loader thread uses the database during an execution: executing
+	 * the statement closes its own streamed result set, while the one of another statement
+	 * of the connection makes the execution fail, as the database is not thread-safe.
+	 */
+	protected void checkDatabaseAvailable (String sql) throws SQLException {
+	    OrientJdbcStatement streaming = connection.getStreamingStatement();
+	    if (streaming == this && resultSet != null)
+	        resultSet.close();
+	    else if (streaming != null && streaming != this)
+	        throw new SQLException(ErrorMessages.get("Statement.databaseUsedByStreamedResult", sql));
+	}
+	
 	protected int executeBatchUpdate(final OCommandSQL sql, Object... args) throws SQLException {
 		int result = NO_UPDATE_RESULT;
 		try {
@@ -280,13 +523,19 @@ public class OrientJdbcStatement implements Statement {
 	}
 
 	public void close() throws SQLException {
-	    if (!closed) {
-    		statement = null;
-    		closed = true;
-    		updateCount = NO_UPDATE_RESULT;
-    		batches = null;
-    		resultSet = null;
-	    }
+	    if (!closed)
+	        closeImpl();
+	}
+
+	protected void closeImpl() throws SQLException {
+        //release the loader thread of a streamed result set
+        if (resultSet != null)
+            resultSet.close();
+		statement = null;
+		closed = true;
+		updateCount = NO_UPDATE_RESULT;
+		batches = null;
+		resultSet = null;
 	}
 
 	public boolean execute(final String sql, int autoGeneratedKeys) throws SQLException {
@@ -314,11 +563,12 @@ public class OrientJdbcStatement implements Statement {
 	        throw new SQLException(ErrorMessages.get("Statement.addStatementToBatchOnClosedObject"));
 	    if (readOnly)
 	    	throw new SQLException(ErrorMessages.get("Statement.addStatementToBatchOnReadOnlyConnection"));
-	    if (sql.startsWith(OCommandExecutorSQLSelect.KEYWORD_SELECT))
+	    OrientJdbcParsedStatement parsed = connection.parseStatement(sql);
+	    if (parsed.isQuery())
 	    	throw new SQLException(ErrorMessages.get("Statement.addQueryToBatch", sql));
 	    if ("".equals(sql))
             throw new SQLException(ErrorMessages.get("Statement.addEmptyStringToBatch"));
-        batches.add(new OCommandSQL(sql));
+        batches.add(parsed.getCommand());
 	}
 
 	public void cancel() throws SQLException {
@@ -340,23 +590,41 @@ public class OrientJdbcStatement implements Statement {
 	        throw new SQLException(ErrorMessages.get("Statement.executeBatchOnClosedObject"));
 	    if (readOnly)
 	    	throw new SQLException(ErrorMessages.get("Statement.addStatementToBatchOnReadOnlyConnection"));
+	    checkDatabaseAvailable(batches.isEmpty() ? "" : batches.get(0).getText());
 	    resultSet = null;
 	    updateCount = NO_UPDATE_RESULT;
 	    
-	    ODatabaseRecordThreadLocal.INSTANCE.set(database);
+	    OrientJdbcDatabaseBinding.bind(database);
         
 		int[] results = new int[batches.size()];
 		int i = 0;
+		boolean intent = declareBatchIntent();
 		try {
     		for (OCommandSQL sql : batches) {
     			results[i++] = executeBatchUpdate(sql);
     		}
 		} catch (Exception e) {
 		    throw new BatchUpdateException(e);
+		} finally {
+			if (intent)
+				database.declareIntent(null);
 		}
 		return results;
 	}
 
+	/**
+	 * Declares the massive insert intent on the database if the connection has been
+	 * configured to run the batches that way (see {@link OrientJdbcConnection#isMassiveInsert()}).
+	 * @return <code>true</code> if the intent has been declared, so it must be removed
+	 * once the batch has been executed, even if the execution fails
+	 */
+	protected boolean declareBatchIntent() {
+		if (!connection.isMassiveInsert())
+			return false;
+		database.declareIntent(new OIntentMassiveInsert());
+		return true;
+	}
+
 	public int getFetchDirection() throws SQLException {
 	    if (closed)
 	        throw new SQLException(ErrorMessages.get("ResultSet.getFetchDirectionFromClosedObject",MESSAGE_FORMAT_CHOICE_INDEX));
@@ -442,7 +710,7 @@ public class OrientJdbcStatement implements Statement {
 
 	public boolean isPoolable() throws SQLException {
 	    if (closed) throw new SQLException(ErrorMessages.get("Statement.getPoolableFromClosedObject"));
-		return false;
+		return poolable;
 	}
 
 	public void setCursorName(final String name) throws SQLException {
@@ -492,7 +760,75 @@ public class OrientJdbcStatement implements Statement {
 	}
 
 	public void setPoolable(final boolean poolable) throws SQLException {
-	    throw new SQLFeatureNotSupportedException();
+	    if (closed) throw new SQLException(ErrorMessages.get("Statement.setPoolableOnClosedObject"));
+	    this.poolable = poolable;
+	}
+
+	/**
+	 * @return <code>true</code> if the result sets of the queries are decoded into columns
+	 * @see #setColumnar(boolean)
+	 */
+	public boolean isColumnar() throws SQLException {
+	    if (closed) throw new SQLException(ErrorMessages.get("Statement.getColumnarFromClosedObject"));
+	    return columnar;
+	}
+
+	/**
+	 * Sets the columnar mode of the result sets of the queries. In this mode the whole
+	 * result is loaded and decoded once into one array per column, numeric columns being
+	 * kept as arrays of primitive values (see {@link OrientJdbcColumnarResult}), and the
+	 * documents are not kept. The result sets are never streamed and they are read-only.
+	 */
+	public void setColumnar(final boolean columnar) throws SQLException {
+	    if (closed) throw new SQLException(ErrorMessages.get("Statement.setColumnarOnClosedObject"));
+	    this.columnar = columnar;
+	}
+
+	/**
+	 * @return the OrientDB fetch plan of the queries, <code>null</code> for the default one
+	 * @see #setFetchPlan(String)
+	 */
+	public String getFetchPlan() throws SQLException {
+	    if (closed) throw new SQLException(ErrorMessages.get("Statement.getFetchPlanFromClosedObject"));
+	    return fetchPlan;
+	}
+
+	/**
+	 * Sets the OrientDB fetch plan of the queries executed from now on, like
+	 * <code>"*:-1"</code> or <code>"lines:2 lines.product:1"</code>. The default value is
+	 * the <code>fetchPlan</code> property of the connection.
+	 */
+	public void setFetchPlan(final String fetchPlan) throws SQLException {
+	    if (closed) throw new SQLException(ErrorMessages.get("Statement.setFetchPlanOnClosedObject"));
+	    try {
+	        OFetchHelper.checkFetchPlanValid(fetchPlan);
+	    } catch (IllegalArgumentException e) {
+	        throw new SQLException(ErrorMessages.get("Statement.badFetchPlan", fetchPlan), e);
+	    }
+	    this.fetchPlan = fetchPlan;
+	}
+
+	/**
+	 * @return the maximum number of bytes of the rows of a fully loaded result set
+	 * (0 means no limit)
+	 * @see #setMaxResultBytes(long)
+	 */
+	public long getMaxResultBytes() throws SQLException {
+	    if (closed) throw new SQLException(ErrorMessages.get("Statement.getMaxResultBytesFromClosedObject"));
+	    return maxResultBytes;
+	}
+
+	/**
+	 * Sets the maximum number of bytes of the rows of the result sets fully loaded from now
+	 * on, as estimated by {@link OrientJdbcResultMemory}. A query whose result exceeds it is
+	 * streamed if the result set is forward-only and read-only, otherwise it fails. The
+	 * default value is the <code>maxResultBytes</code> property of the connection.
+	 */
+	public void setMaxResultBytes(final long maxResultBytes) throws SQLException {
+	    if (closed) throw new SQLException(ErrorMessages.get("Statement.setMaxResultBytesOnClosedObject"));
+	    if (maxResultBytes < 0)
+	        throw new SQLException(ErrorMessages.get("Statement.badMaxResultBytes", maxResultBytes));
+	    this.maxResultBytes = maxResultBytes;
 	}
 
 	public void setQueryTimeout(final int seconds) throws SQLException {
@@ -502,6 +838,8 @@ public class OrientJdbcStatement implements Statement {
 	public boolean isWrapperFor(Class<?> iface) throws SQLException {
 		// This should check is this instance is a wrapper for the given class
 		try {
+			if (OrientJdbcStatement.class.isAssignableFrom(iface))
+				return iface.isInstance(this);
 			// the following if-then structure makes sense if the query can be a
 			// subclass of OCommandSQL.
 			if (this.statement == null)
@@ -516,10 +854,26 @@ public class OrientJdbcStatement implements Statement {
 	public <T> T unwrap(Class<T> iface) throws SQLException {
 		// This should return the actual query object: OCommandSQL, OQuery, etc...
 		try {
+			if (OrientJdbcStatement.class.isAssignableFrom(iface))
+				return iface.cast(this);
 			return iface.cast(statement);
 		} catch (ClassCastException e) {
 			throw new SQLException(e);
 		}
 	}
 
+	/*
+	 * Raised inside the query executor to stop a scan whose result is too large
+	 */
+	@SuppressWarnings("serial")
+	private static class ResultLimitExceeded extends RuntimeException {
+	    ResultLimitExceeded() {
+	        super(null, null);
+	    }
+
+	    @Override
+	    public synchronized Throwable fillInStackTrace() {
+	        return this;
+	    }
+	}
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of the SQL statements parsed by a connection, keyed by their text.
+ * It also keeps the column label indexes of the result sets, so that the result sets
+ * having the same projection share the same index, and the columns of the queries whose
+ * result does not tell all of them (see {@link #getResultColumns(String, int)}).
+ * <p>
+ * The statistics of the cache can be read by unwrapping the connection:
+ * <pre>
+ * OrientJdbcStatementCache cache = connection.unwrap(OrientJdbcStatementCache.class);
+ * </pre>
+ */
+public class OrientJdbcStatementCache {
+
+    public static final int DEFAULT_SIZE = 256;
+
+    private final int maxSize;
+    private final Map<String, OrientJdbcParsedStatement> statements;
+    private final Map<List<String>, OrientJdbcColumnIndex> columnIndexes;
+    private final Map<String, ResultColumns> resultColumns;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param iMaxSize the maximum number of statements kept in the cache (0 disables the cache)
+     */
+    OrientJdbcStatementCache(int iMaxSize) {
+        this.maxSize = iMaxSize;
+        //access-ordered, so the eldest entry is the least recently used statement
+        this.statements = new LinkedHashMap<String, OrientJdbcParsedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OrientJdbcParsedStatement> eldest) {
+                if (size() <= maxSize)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+        this.columnIndexes = new LinkedHashMap<List<String>, OrientJdbcColumnIndex>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<String>, OrientJdbcColumnIndex> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.resultColumns = new LinkedHashMap<String, ResultColumns>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ResultColumns> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the parsed statement of the given SQL text, parsing it if it is not in the cache
+     */
+    synchronized OrientJdbcParsedStatement get(String sql) {
+        OrientJdbcParsedStatement statement = statements.get(sql);
+        if (statement != null) {
+            hits++;
+            return statement;
+        }
+        misses++;
+        statement = new OrientJdbcParsedStatement(sql);
+        if (maxSize > 0)
+            statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * @return the label index of the given columns, shared by all the result sets having
+     * the same columns in the same order
+     */
+    synchronized OrientJdbcColumnIndex getColumnIndex(String[] columns) {
+        List<String> key = Arrays.asList(columns);
+        OrientJdbcColumnIndex index = columnIndexes.get(key);
+        if (index == null) {
+            index = new OrientJdbcColumnIndex(columns);
+            if (maxSize > 0)
+                columnIndexes.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * @param key the text of the query
+     * @param schemaVersion the current version of the schema of the database
+     * @return the columns of the result of the query, or <code>null</code> if they are
+     * not known or the schema has changed since they were found
+     */
+    synchronized String[] getResultColumns(String key, int schemaVersion) {
+        ResultColumns columns = resultColumns.get(key);
+        if (columns == null)
+            return null;
+        if (columns.schemaVersion != schemaVersion) {
+            resultColumns.remove(key);
+            return null;
+        }
+        return columns.names;
+    }
+
+    synchronized void putResultColumns(String key, int schemaVersion, String[] columns) {
+        if (maxSize > 0)
+            resultColumns.put(key, new ResultColumns(columns, schemaVersion));
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized int getSize() {
+        return statements.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized void clear() {
+        statements.clear();
+        columnIndexes.clear();
+        resultColumns.clear();
+    }
+
+    private static final class ResultColumns {
+
+        private final String[] names;
+        private final int schemaVersion;
+
+        private ResultColumns(String[] iNames, int iSchemaVersion) {
+            this.names = iNames;
+            this.schemaVersion = iSchemaVersion;
+        }
+    }
+}
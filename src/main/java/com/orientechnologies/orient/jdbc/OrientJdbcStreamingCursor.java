@@ -0,0 +1,217 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.orientechnologies.orient.core.command.OCommandResultListener;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.exception.OQueryParsingException;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+
+/**
+ * Forward-only source of documents fed by an asynchronous OrientDB query.
+ * <p>
+ * The query runs on a dedicated loader thread that pushes every record into a
+ * bounded buffer: when the buffer is full the loader blocks until the result set
+ * consumes a row, so the heap never holds more than <code>bufferSize</code>
+ * documents waiting to be read. The underlying database must not be used by other
+ * statements until the cursor has been exhausted or closed: the connection makes
+ * their executions fail meanwhile.
+ */
+class OrientJdbcStreamingCursor implements OrientJdbcCursor, OCommandResultListener, Runnable {
+
+    /*
+     * Marker put into the buffer by the loader thread once the query is over
+     */
+    private static final Object END_OF_RESULT = new Object();
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private static final String LOADER_THREAD_NAME = "OrientDB JDBC streaming cursor";
+
+    private final ODatabaseDocumentTx database;
+    private final OSQLAsynchQuery<ODocument> query;
+    private final Object[] args;
+    private final int maxRows;
+    private final BlockingQueue<Object> buffer;
+
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private volatile boolean stopped;
+    //true while the loader thread waits for room in the buffer, guarded by this
+    private boolean offering;
+    private int loadedRows;
+    private boolean exhausted;
+    private Thread loader;
+
+    /**
+     * @param iDatabase the database the query is executed against
+     * @param sql the text of the SQL query
+     * @param bufferSize the maximum number of documents waiting to be consumed
+     * @param maxRows the maximum number of documents to be loaded (0 means no limit)
+     * @param fetchPlan the fetch plan of the query (<code>null</code> for the default one)
+     * @param iArgs the query parameters
+     */
+    OrientJdbcStreamingCursor(ODatabaseDocumentTx iDatabase, String sql, int bufferSize, int maxRows, 
+            String fetchPlan, Object... iArgs) {
+        this.database = iDatabase;
+        this.query = new OSQLAsynchQuery<ODocument>(sql, this);
+        this.query.setFetchPlan(fetchPlan);
+        //let the storage stop the scan when it has found enough records
+        if (maxRows != OrientJdbcStatement.NO_LIMIT)
+            this.query.setLimit(maxRows);
+        this.args = iArgs;
+        this.maxRows = maxRows;
+        this.buffer = new ArrayBlockingQueue<Object>(bufferSize);
+        this.loadedRows = 0;
+        this.exhausted = false;
+        this.closed = false;
+        this.stopped = false;
+    }
+
+    /**
+     * Starts the loader thread.
+     */
+    void open() {
+        loader = new Thread(this, LOADER_THREAD_NAME);
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public void run() {
+        OrientJdbcDatabaseBinding.bind(database);
+        try {
+            database.query(query, args);
+        } catch (Throwable t) {
+            //an exception raised after the scan has been stopped on purpose is not a failure
+            if (!stopped)
+                failure = t;
+        } finally {
+            enqueue(END_OF_RESULT);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.orientechnologies.orient.core.command.OCommandResultListener#result(java.lang.Object)
+     */
+    public boolean result(Object iRecord) {
+        //the query executor ignores the value returned by this method, so the only
+        //way to stop the scan once the consumer has gone is to abort it
+        if ((maxRows != OrientJdbcStatement.NO_LIMIT && loadedRows >= maxRows) || !enqueue(iRecord)) {
+            stopped = true;
+            throw new OrientJdbcStreamingCursorStop();
+        }
+        loadedRows++;
+        return true;
+    }
+
+    private boolean enqueue(Object item) {
+        synchronized (this) {
+            if (closed)
+                return false;
+            offering = true;
+        }
+        try {
+            while (!closed) {
+                if (buffer.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                    return true;
+            }
+        } catch (InterruptedException e) {
+            //interrupted by close()
+        } finally {
+            synchronized (this) {
+                offering = false;
+                //an interrupt sent by close() must not reach the storage
+                Thread.interrupted();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the next document of the result, waiting for the loader thread if the
+     * buffer is empty.
+     *
+     * @return the next document or <code>null</code> if the result has been entirely read
+     * @throws SQLException if the query failed or the calling thread has been interrupted
+     */
+    public ODocument next() throws SQLException {
+        if (exhausted || closed)
+            return null;
+        Object item;
+        try {
+            item = buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(ErrorMessages.get("ResultSet.streamingInterrupted", query.getText()), e);
+        }
+        if (item == END_OF_RESULT) {
+            exhausted = true;
+            if (failure instanceof OQueryParsingException)
+                throw new SQLSyntaxErrorException(ErrorMessages.get("Statement.syntaxError", query.getText()), failure);
+            if (failure != null)
+                throw new SQLException(ErrorMessages.get("ResultSet.streamingQueryFailed", query.getText()), failure);
+            return null;
+        }
+        return (ODocument) item;
+    }
+
+    /**
+     * Stops the loader thread, waiting for it to leave the database, and releases the
+     * buffered documents.
+     */
+    public void close() {
+        if (!closed) {
+            synchronized (this) {
+                closed = true;
+                //the loader is interrupted only while it waits for the buffer: an
+                //interrupt during a read would close the files of the storage
+                if (offering && loader != null)
+                    loader.interrupt();
+            }
+            buffer.clear();
+            if (loader != null && loader != Thread.currentThread()) {
+                try {
+                    loader.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /*
+     * Raised inside the query executor to stop a scan whose rows are no longer needed
+     */
+    @SuppressWarnings("serial")
+    private static class OrientJdbcStreamingCursorStop extends RuntimeException {
+        OrientJdbcStreamingCursorStop() {
+            super(null, null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
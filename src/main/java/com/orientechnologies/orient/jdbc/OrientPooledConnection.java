@@ -0,0 +1,259 @@
+/*
+ * Copyright 1999-2010 Luca Garulli (l.garulli--at--orientechnologies.com)
+ * Copyright 2011-2012 TXT e-solutions SpA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.orientechnologies.orient.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEvent;
+import javax.sql.StatementEventListener;
+
+import com.orientechnologies.common.log.OLogManager;
+
+/**
+ * Physical connection to an OrientDB database managed by a connection pool.
+ * <p>
+ * The application gets a logical connection from {@link #getConnection()}: closing it
+ * rolls back the open transaction, if any, and notifies the registered
+ * {@link ConnectionEventListener}s that the physical connection can be reused. Only the
+ * last logical connection returned by {@link #getConnection()} can be used.
+ * <p>
+ * If <code>maxStatements</code> is greater than 0, the poolable prepared statements closed by
+ * the application are kept in a LRU cache and handed out again when the same SQL statement is
+ * prepared with the same result set type, concurrency and holdability.
+ * 
+ * @see OrientConnectionPoolDataSource
+ */
+public class OrientPooledConnection implements PooledConnection {
+
+    private final OrientJdbcConnection physicalConnection;
+    private final int maxStatements;
+    private final Map<StatementKey, OrientJdbcPreparedStatement> statementCache;
+    private final List<ConnectionEventListener> connectionEventListeners;
+    private final List<StatementEventListener> statementEventListeners;
+
+    private OrientJdbcLogicalConnection logicalConnection;
+    private boolean closed;
+
+    /**
+     * @param iPhysicalConnection the connection to the database
+     * @param iMaxStatements the maximum number of prepared statements kept for reuse (0 disables the statement cache)
+     */
+    public OrientPooledConnection(OrientJdbcConnection iPhysicalConnection, final int iMaxStatements) {
+        this.physicalConnection = iPhysicalConnection;
+        this.maxStatements = iMaxStatements;
+        //access-ordered, so the eldest entry is the least recently used statement
+        this.statementCache = new LinkedHashMap<StatementKey, OrientJdbcPreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StatementKey, OrientJdbcPreparedStatement> eldest) {
+                if (size() <= maxStatements)
+                    return false;
+                discard(eldest.getValue());
+                return true;
+            }
+        };
+        this.connectionEventListeners = new CopyOnWriteArrayList<ConnectionEventListener>();
+        this.statementEventListeners = new CopyOnWriteArrayList<StatementEventListener>();
+        this.closed = false;
+    }
+
+    public synchronized Connection getConnection() throws SQLException {
+        if (closed)
+            throw new SQLException(ErrorMessages.get("PooledConnection.getConnectionFromClosedObject"));
+        //the previous logical connection can no longer be used
+        if (logicalConnection != null)
+            logicalConnection.invalidate();
+        logicalConnection = new OrientJdbcLogicalConnection(physicalConnection, this);
+        return logicalConnection;
+    }
+
+    public void close() throws SQLException {
+        List<OrientJdbcPreparedStatement> statements;
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            if (logicalConnection != null) {
+                logicalConnection.invalidate();
+                logicalConnection = null;
+            }
+            statements = new ArrayList<OrientJdbcPreparedStatement>(statementCache.values());
+            statementCache.clear();
+        }
+        for (OrientJdbcPreparedStatement statement : statements)
+            discard(statement);
+        if (!physicalConnection.isClosed())
+            physicalConnection.close();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return <code>true</code> if the physical connection is still open
+     */
+    public boolean isValid() {
+        try {
+            return !isClosed() && physicalConnection.isValid(0);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    OrientJdbcConnection getPhysicalConnection() {
+        return physicalConnection;
+    }
+
+    public void addConnectionEventListener(ConnectionEventListener listener) {
+        connectionEventListeners.add(listener);
+    }
+
+    public void removeConnectionEventListener(ConnectionEventListener listener) {
+        connectionEventListeners.remove(listener);
+    }
+
+    public void addStatementEventListener(StatementEventListener listener) {
+        statementEventListeners.add(listener);
+    }
+
+    public void removeStatementEventListener(StatementEventListener listener) {
+        statementEventListeners.remove(listener);
+    }
+
+    /**
+     * Called by a logical connection when the application closes it.
+     *
+     * @param error the error that makes the physical connection unusable or <code>null</code>
+     */
+    void logicalConnectionClosed(OrientJdbcLogicalConnection iLogicalConnection, SQLException error) {
+        synchronized (this) {
+            if (logicalConnection == iLogicalConnection)
+                logicalConnection = null;
+        }
+        if (error == null) {
+            ConnectionEvent event = new ConnectionEvent(this);
+            for (ConnectionEventListener listener : connectionEventListeners)
+                listener.connectionClosed(event);
+        } else {
+            ConnectionEvent event = new ConnectionEvent(this, error);
+            for (ConnectionEventListener listener : connectionEventListeners)
+                listener.connectionErrorOccurred(event);
+        }
+    }
+
+    /**
+     * @return the cached statement prepared with the same arguments or <code>null</code>
+     */
+    synchronized OrientJdbcPreparedStatement takeStatement(String sql, int resultSetType, int resultSetConcurrency,
+            int resultSetHoldability, boolean readOnly) {
+        if (maxStatements == 0)
+            return null;
+        return statementCache.remove(new StatementKey(sql, resultSetType, resultSetConcurrency, resultSetHoldability, readOnly));
+    }
+
+    /**
+     * Called when the application closes a prepared statement of a logical connection.
+     * 
+     * @return <code>true</code> if the statement has been cached
+     */
+    boolean statementClosed(OrientJdbcPreparedStatement statement) {
+        boolean cached = false;
+        OrientJdbcPreparedStatement replaced = null;
+        synchronized (this) {
+            if (!closed && maxStatements > 0 && statement.poolable) {
+                replaced = statementCache.put(new StatementKey(statement), statement);
+                cached = true;
+            }
+        }
+        if (replaced != null)
+            discard(replaced);
+        StatementEvent event = new StatementEvent(this, statement);
+        for (StatementEventListener listener : statementEventListeners)
+            listener.statementClosed(event);
+        return cached;
+    }
+
+    void statementErrorOccurred(OrientJdbcPreparedStatement statement, SQLException error) {
+        StatementEvent event = new StatementEvent(this, statement, error);
+        for (StatementEventListener listener : statementEventListeners)
+            listener.statementErrorOccurred(event);
+    }
+
+    private void discard(OrientJdbcPreparedStatement statement) {
+        try {
+            statement.closeImpl();
+        } catch (SQLException e) {
+            OLogManager.instance().warn(this, LogMessages.get("PooledConnection.statementCloseError"), e);
+        }
+    }
+
+    /*
+     * Identifies the statements that can be used in place of each other
+     */
+    private static class StatementKey {
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final int resultSetHoldability;
+        private final boolean readOnly;
+
+        StatementKey(String iSql, int iResultSetType, int iResultSetConcurrency, int iResultSetHoldability, boolean iReadOnly) {
+            this.sql = iSql;
+            this.resultSetType = iResultSetType;
+            this.resultSetConcurrency = iResultSetConcurrency;
+            this.resultSetHoldability = iResultSetHoldability;
+            this.readOnly = iReadOnly;
+        }
+
+        StatementKey(OrientJdbcPreparedStatement statement) {
+            this(statement.getSql(), statement.resultSetType, statement.resultSetConcurrency, 
+                    statement.resultSetHoldability, statement.readOnly);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = sql.hashCode();
+            result = 31 * result + resultSetType;
+            result = 31 * result + resultSetConcurrency;
+            result = 31 * result + resultSetHoldability;
+            return 31 * result + (readOnly ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof StatementKey))
+                return false;
+            StatementKey other = (StatementKey) obj;
+            return sql.equals(other.sql) && resultSetType == other.resultSetType
+                    && resultSetConcurrency == other.resultSetConcurrency
+                    && resultSetHoldability == other.resultSetHoldability && readOnly == other.readOnly;
+        }
+    }
+}
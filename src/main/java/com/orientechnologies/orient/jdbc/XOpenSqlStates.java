@@ -43,6 +43,20 @@ public class XOpenSqlStates {
      */
     public static final String DISCONNECT_ERROR = "01002";
     
+    //----- CONNECTION EXCEPTION ------------------
+    
+    /**
+     * The client could not establish a connection
+     */
+    public static final String UNABLE_TO_ESTABLISH_CONNECTION = "08001";
+    
     //TODO
     public static final String FEATURE_NOT_SUPPORTED = "0A000";
+    
+    //----- PROGRAM LIMIT EXCEEDED ------------------
+    
+    /**
+     * The statement exceeded a limit set on its resources
+     */
+    public static final String PROGRAM_LIMIT_EXCEEDED = "54000";
 }
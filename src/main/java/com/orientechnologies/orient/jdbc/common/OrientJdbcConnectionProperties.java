@@ -34,6 +34,15 @@ public class OrientJdbcConnectionProperties {
         public static final String USERNAME = "user";
         public static final String PASSWORD = "password";
         public static final String CONNECTION_TYPE = "type";
+        public static final String STATEMENT_CACHE_SIZE = "statementCacheSize";
+        public static final String BATCH_TRANSACTION_SIZE = "batchTransactionSize";
+        public static final String MASSIVE_INSERT = "massiveInsert";
+        public static final String SPILL_THRESHOLD = "spillThreshold";
+        public static final String UPDATE_BATCH_SIZE = "updateBatchSize";
+        public static final String FETCH_PLAN = "fetchPlan";
+        public static final String PREFETCH = "prefetch";
+        public static final String PARALLEL_DECODING = "parallelDecoding";
+        public static final String MAX_RESULT_BYTES = "maxResultBytes";
     }
     
     public static class Values {
@@ -44,6 +44,7 @@ public class OrientDocumentDatabaseConnection extends OrientJdbcConnection{
     
     public OrientDocumentDatabaseConnection (String iUrl, String iUser, String iPassword, Properties iInfo) 
             throws NullPointerException, IllegalArgumentException, SQLException {
+        super(iInfo);
         if (iUrl.isEmpty())
             throw new IllegalArgumentException(String.format(EMPTY_STRING_ARGUMENT, "URL of the document database"));
         if (iUser.isEmpty())
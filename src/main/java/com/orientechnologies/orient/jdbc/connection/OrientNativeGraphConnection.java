@@ -45,6 +45,7 @@ public class OrientNativeGraphConnection extends OrientJdbcConnection {
     
     public OrientNativeGraphConnection (String iUrl, String iUser, String iPassword, Properties iInfo) 
             throws NullPointerException, IllegalArgumentException, SQLException{
+        super(iInfo);
         if (iUrl.isEmpty())
             throw new IllegalArgumentException(String.format(EMPTY_STRING_ARGUMENT, "URL of the native graph database"));
         if (iUser.isEmpty())
@@ -45,6 +45,7 @@ public class OrientObjectDatabaseConnection extends OrientJdbcConnection {
     
     public OrientObjectDatabaseConnection (String iUrl, String iUser, String iPassword, Properties iInfo) 
             throws NullPointerException, IllegalArgumentException, SQLException{
+        super(iInfo);
         if (iUrl.isEmpty())
             throw new IllegalArgumentException(String.format(EMPTY_STRING_ARGUMENT, "URL of the object database"));
         if (iUser.isEmpty())
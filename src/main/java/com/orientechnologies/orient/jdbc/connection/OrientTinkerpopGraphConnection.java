@@ -52,6 +52,7 @@ public class OrientTinkerpopGraphConnection extends OrientJdbcConnection{
      */
     public OrientTinkerpopGraphConnection(String iUrl, String iUser, String iPassword, Properties iInfo) 
             throws SQLException, NullPointerException, IllegalArgumentException {
+        super(iInfo);
         if (iUrl.isEmpty())
             throw new IllegalArgumentException(String.format(EMPTY_STRING_ARGUMENT, "URL of the object database"));
         if (iUser.isEmpty())
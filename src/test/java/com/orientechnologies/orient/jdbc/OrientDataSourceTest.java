@@ -1,14 +1,30 @@
 package com.orientechnologies.orient.jdbc;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEvent;
+import javax.sql.StatementEventListener;
 
 import org.junit.Test;
 
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class OrientDataSourceTest {
 
@@ -41,4 +57,150 @@ public class OrientDataSourceTest {
 
     }
 
+    @Test
+    public void shouldPoolConnections() throws SQLException {
+        String dbUrl = "memory:pooltest";
+
+        ODatabaseDocumentTx db = new ODatabaseDocumentTx(dbUrl);
+        if (db.exists()) {
+            db.open("admin", "admin");
+            db.drop();
+        }
+        db.create();
+        db.getMetadata().getSchema().createClass("Pooled");
+
+        OrientDataSource ds = new OrientDataSource();
+        ds.setUrl("jdbc:orient:" + dbUrl);
+        ds.setUsername("admin");
+        ds.setPassword("admin");
+        ds.setMinPoolSize(1);
+        ds.setMaxPoolSize(2);
+        ds.setAcquireTimeout(200);
+
+        Connection conn = ds.getConnection();
+        ODatabaseDocumentTx physical = conn.unwrap(ODatabaseDocumentTx.class);
+        // the connection starts in manual commit mode, so the transaction is begun here
+        assertFalse(conn.getAutoCommit());
+        ODatabaseRecordThreadLocal.INSTANCE.set(physical);
+        physical.begin();
+        new ODocument("Pooled").field("name", "uncommitted").save();
+        assertTrue(physical.getTransaction().isActive());
+        conn.close();
+        assertTrue(conn.isClosed());
+        // the physical database is given back to the pool after the rollback
+        assertFalse(physical.isClosed());
+        assertFalse(physical.getTransaction().isActive());
+        assertEquals(0, physical.countClass("Pooled"));
+
+        Connection first = ds.getConnection();
+        assertSame(physical, first.unwrap(ODatabaseDocumentTx.class));
+        assertFalse(first.getAutoCommit());
+        assertFalse(first.isReadOnly());
+        Connection second = ds.getConnection();
+        assertNotSame(physical, second.unwrap(ODatabaseDocumentTx.class));
+
+        try {
+            ds.getConnection();
+            fail("The pool should be exhausted");
+        } catch (SQLTransientConnectionException e) {
+            assertEquals(XOpenSqlStates.UNABLE_TO_ESTABLISH_CONNECTION, e.getSQLState());
+        }
+
+        second.close();
+        Connection third = ds.getConnection();
+        assertNotNull(third);
+        third.close();
+        first.close();
+
+        ds.close();
+        assertTrue(physical.isClosed());
+    }
+
+    @Test
+    public void shouldCachePreparedStatementsOfPooledConnections() throws SQLException {
+        String dbUrl = "memory:pooledconnectiontest";
+
+        ODatabaseDocumentTx db = new ODatabaseDocumentTx(dbUrl);
+        if (db.exists()) {
+            db.open("admin", "admin");
+            db.drop();
+        }
+        db.create();
+
+        OrientConnectionPoolDataSource ds = new OrientConnectionPoolDataSource();
+        ds.setUrl("jdbc:orient:" + dbUrl);
+        ds.setUsername("admin");
+        ds.setPassword("admin");
+        ds.setMaxStatements(1);
+
+        PooledConnection pooled = ds.getPooledConnection();
+        EventCounter events = new EventCounter();
+        pooled.addConnectionEventListener(events);
+        pooled.addStatementEventListener(events);
+
+        Connection conn = pooled.getConnection();
+        Statement stmt = conn.createStatement();
+        assertFalse(stmt.isPoolable());
+        stmt.setPoolable(true);
+        assertTrue(stmt.isPoolable());
+        stmt.close();
+
+        PreparedStatement ps = conn.prepareStatement("SELECT FROM OUser");
+        assertTrue(ps.isPoolable());
+        assertTrue(ps.executeQuery().next());
+        ps.close();
+        assertTrue(ps.isClosed());
+        assertEquals(1, events.closedStatements);
+
+        // the same SQL statement is prepared again from the cache
+        PreparedStatement again = conn.prepareStatement("SELECT FROM OUser");
+        assertSame(ps, again);
+        assertFalse(again.isClosed());
+        assertTrue(again.executeQuery().next());
+        again.close();
+
+        // the least recently used statement is evicted
+        PreparedStatement other = conn.prepareStatement("SELECT FROM ORole");
+        other.close();
+        assertNotSame(ps, conn.prepareStatement("SELECT FROM OUser"));
+
+        conn.close();
+        assertEquals(1, events.closedConnections);
+
+        Connection second = pooled.getConnection();
+        PreparedStatement reused = second.prepareStatement("SELECT FROM ORole");
+        assertSame(other, reused);
+        assertSame(second, reused.getConnection());
+
+        // only the last logical connection can be used
+        Connection third = pooled.getConnection();
+        assertTrue(second.isClosed());
+        assertFalse(third.isClosed());
+
+        pooled.close();
+        assertTrue(third.isClosed());
+        assertEquals(0, events.connectionErrors);
+    }
+
+    private static class EventCounter implements ConnectionEventListener, StatementEventListener {
+        private int closedConnections;
+        private int connectionErrors;
+        private int closedStatements;
+
+        public void connectionClosed(ConnectionEvent event) {
+            closedConnections++;
+        }
+
+        public void connectionErrorOccurred(ConnectionEvent event) {
+            connectionErrors++;
+        }
+
+        public void statementClosed(StatementEvent event) {
+            closedStatements++;
+        }
+
+        public void statementErrorOccurred(StatementEvent event) {
+        }
+    }
+
 }
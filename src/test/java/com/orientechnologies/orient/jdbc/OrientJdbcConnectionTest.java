@@ -1,9 +1,13 @@
 package com.orientechnologies.orient.jdbc;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.Statement;
+import java.util.Properties;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -48,4 +52,35 @@ public class OrientJdbcConnectionTest extends OrientJdbcBaseTest {
 
     }
 
+    @Test
+    public void shouldCacheParsedStatements() throws Exception {
+        OrientJdbcStatementCache cache = conn.unwrap(OrientJdbcStatementCache.class);
+        assertTrue(conn.isWrapperFor(OrientJdbcStatementCache.class));
+        assertEquals(OrientJdbcStatementCache.DEFAULT_SIZE, cache.getMaxSize());
+
+        conn.prepareStatement("SELECT FROM Item WHERE intKey = ?").close();
+        conn.prepareStatement("SELECT FROM Item WHERE intKey = ?").close();
+        conn.createStatement().executeUpdate("UPDATE Item SET text = 'cached' WHERE intKey = 1");
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getSize());
+
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        info.put("statementCacheSize", "1");
+        Connection small = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            cache = small.unwrap(OrientJdbcStatementCache.class);
+            small.prepareStatement("SELECT FROM Item").close();
+            small.prepareStatement("SELECT FROM Article").close();
+            small.prepareStatement("SELECT FROM Item").close();
+            assertEquals(0, cache.getHitCount());
+            assertEquals(2, cache.getEvictionCount());
+            assertEquals(1, cache.getSize());
+        } finally {
+            small.close();
+        }
+    }
+
 }
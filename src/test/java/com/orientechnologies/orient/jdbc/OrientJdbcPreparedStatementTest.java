@@ -1,17 +1,26 @@
 package com.orientechnologies.orient.jdbc;
 
+import java.sql.BatchUpdateException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.RowId;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 
 import org.junit.Test;
 
+import com.orientechnologies.orient.core.id.ORID;
+
 import static org.hamcrest.Matchers.equalTo;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class OrientJdbcPreparedStatementTest extends OrientJdbcBaseTest {
 
@@ -51,4 +60,146 @@ public class OrientJdbcPreparedStatementTest extends OrientJdbcBaseTest {
 
     }
 
+    @Test
+    public void shouldBindNativeParameters() throws Exception {
+        ResultSet rs = conn.createStatement().executeQuery("SELECT FROM Item WHERE intKey = 3");
+        assertTrue(rs.next());
+        ORID rid = ((OrientRowId) rs.getRowId(1)).unwrap();
+        long length = rs.getLong("length");
+
+        PreparedStatement stmt = conn.prepareStatement("SELECT intKey FROM Item WHERE @rid = ?");
+        stmt.setObject(1, rid);
+        rs = stmt.executeQuery();
+        assertTrue(rs.next());
+        assertEquals(3, rs.getInt("intKey"));
+        stmt.close();
+
+        // parameters bound out of order land in their own slot
+        stmt = conn.prepareStatement("SELECT FROM Item WHERE length = ? AND time < ?");
+        stmt.setTimestamp(2, new Timestamp(System.currentTimeMillis() + 60000));
+        stmt.setLong(1, length);
+        rs = stmt.executeQuery();
+        int rows = 0;
+        while (rs.next())
+            rows++;
+        assertEquals(20, rows);
+        stmt.close();
+
+        stmt = conn.prepareStatement("UPDATE Item SET title = ? WHERE intKey = ?");
+        stmt.setNull(1, Types.VARCHAR);
+        stmt.setInt(2, 3);
+        assertEquals(1, stmt.executeUpdate());
+        stmt.close();
+
+        rs = conn.createStatement().executeQuery("SELECT title FROM Item WHERE intKey = 3");
+        assertTrue(rs.next());
+        assertNull(rs.getString("title"));
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void shouldBindParametersOfTheTargetSqlType() throws Exception {
+        PreparedStatement stmt = conn.prepareStatement("SELECT FROM Item WHERE intKey = ? AND stringKey = ?");
+        stmt.setObject(1, "3", Types.INTEGER);
+        stmt.setObject(2, Integer.valueOf(3), Types.VARCHAR);
+        ResultSet rs = stmt.executeQuery();
+        assertTrue(rs.next());
+        assertEquals(3, rs.getInt("intKey"));
+        RowId rid = rs.getRowId(1);
+        stmt.close();
+
+        stmt = conn.prepareStatement("SELECT intKey FROM Item WHERE @rid = ?");
+        stmt.setObject(1, rid.toString(), Types.ROWID);
+        rs = stmt.executeQuery();
+        assertTrue(rs.next());
+        assertEquals(3, rs.getInt("intKey"));
+
+        try {
+            stmt.setObject(1, "three", Types.INTEGER, 0);
+            fail("A word cannot be bound as an integer");
+        } catch (SQLException e) {
+            assertTrue(e.getCause() instanceof RuntimeException);
+        }
+        stmt.close();
+    }
+
+    @Test
+    public void shouldForgetClearedParameters() throws Exception {
+        PreparedStatement stmt = conn.prepareStatement("SELECT FROM Item WHERE intKey = ? OR stringKey = ? OR text = '?'");
+        stmt.setString(2, "2");
+        stmt.setInt(1, 1);
+        ResultSet rs = stmt.executeQuery();
+        assertTrue(rs.next());
+        assertTrue(rs.next());
+        assertFalse(rs.next());
+
+        // the value bound to the second placeholder before the clear is not used anymore
+        stmt.clearParameters();
+        stmt.setInt(1, 5);
+        rs = stmt.executeQuery();
+        assertTrue(rs.next());
+        assertEquals(5, rs.getInt("intKey"));
+        assertFalse(rs.next());
+        stmt.close();
+    }
+
+    @Test
+    public void shouldExecuteBatchOfParameterSets() throws Exception {
+        // in auto-commit mode the batch is committed in chunks
+        conn.setAutoCommit(true);
+        PreparedStatement stmt = conn.prepareStatement("INSERT INTO Item (stringKey, intKey) VALUES (?, ?)");
+        for (int i = 101; i <= 105; i++) {
+            stmt.setString(1, "batch" + i);
+            stmt.setInt(2, i);
+            stmt.addBatch();
+        }
+        int[] counts = stmt.executeBatch();
+        assertEquals("Unexpected number of update counts", 5, counts.length);
+        for (int count : counts)
+            assertEquals(1, count);
+
+        ResultSet rs = conn.createStatement().executeQuery("SELECT FROM Item WHERE intKey > 100");
+        int rows = 0;
+        while (rs.next())
+            rows++;
+        assertEquals("Unexpected number of inserted rows", 5, rows);
+
+        // the batch is empty once executed
+        assertEquals(0, stmt.executeBatch().length);
+
+        // the chunk holding a failing row is rolled back and its rows are not reported
+        stmt.setString(1, "batch106");
+        stmt.setInt(2, 106);
+        stmt.addBatch();
+        stmt.setString(1, "batch101");
+        stmt.setInt(2, 101);
+        stmt.addBatch();
+        try {
+            stmt.executeBatch();
+            assertTrue("The batch should fail on the duplicated key", false);
+        } catch (BatchUpdateException e) {
+            assertEquals(0, e.getUpdateCounts().length);
+        }
+        stmt.close();
+    }
+
+    @Test
+    public void shouldLeaveBatchesToTheTransactionInManualCommitMode() throws Exception {
+        assertFalse(conn.getAutoCommit());
+        PreparedStatement stmt = conn.prepareStatement("INSERT INTO Item (stringKey, intKey) VALUES (?, ?)");
+        for (int i = 201; i <= 203; i++) {
+            stmt.setString(1, "batch" + i);
+            stmt.setInt(2, i);
+            stmt.addBatch();
+        }
+        assertEquals(3, stmt.executeBatch().length);
+        assertTrue(conn.getOrientDatabase().getTransaction().isActive());
+
+        // the rows are not committed until the connection commits
+        conn.rollback();
+        ResultSet rs = conn.createStatement().executeQuery("SELECT FROM Item WHERE intKey > 200");
+        assertFalse(rs.next());
+        stmt.close();
+    }
+
 }
@@ -1,15 +1,46 @@
 package com.orientechnologies.orient.jdbc;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 
 import org.junit.Test;
 
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.hook.ORecordHookAbstract;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class OrientJdbcResultSetTest extends OrientJdbcBaseTest {
 
@@ -52,4 +83,791 @@ public class OrientJdbcResultSetTest extends OrientJdbcBaseTest {
         } while (rs.next());
     }
 
+    @Test
+    public void shouldStreamForwardOnlyResults() throws Exception {
+        Statement stmt = conn.createStatement();
+        stmt.setFetchSize(3);
+        // a sorted query is streamed, not read one page at a time
+        ResultSet rs = stmt.executeQuery("SELECT FROM Item ORDER BY intKey");
+
+        assertEquals("Unexpected fetch size", 3, rs.getFetchSize());
+        assertEquals("Unexpected number of columns", 10, rs.getMetaData().getColumnCount());
+        int rows = 0;
+        while (rs.next()) {
+            rows++;
+            assertEquals(rows, rs.getInt("intKey"));
+            assertEquals(rows == 20, rs.isLast());
+        }
+        assertEquals("Unexpected number of rows", 20, rows);
+        assertTrue(rs.isAfterLast());
+        rs.close();
+        stmt.close();
+    }
+
+    @Test
+    public void shouldStopStreamingOnClose() throws Exception {
+        Statement stmt = conn.createStatement();
+        stmt.setFetchSize(2);
+        ResultSet rs = stmt.executeQuery("SELECT FROM Item");
+        assertTrue(rs.next());
+        rs.close();
+        assertTrue(rs.isClosed());
+
+        // the connection can be used again once the streamed result set is closed
+        rs = conn.createStatement().executeQuery("SELECT FROM Item");
+        assertTrue(rs.next());
+    }
+
+    @Test
+    public void shouldStopTheLoaderThreadOnClose() throws Exception {
+        Set<Thread> threads = new HashSet<Thread>(Thread.getAllStackTraces().keySet());
+        Statement stmt = conn.createStatement();
+        stmt.setFetchSize(2);
+        ResultSet rs = stmt.executeQuery("SELECT FROM Item ORDER BY intKey");
+        assertTrue(rs.next());
+        rs.close();
+
+        // the loader thread has left the database once close() returns
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+            if (!threads.contains(thread))
+                assertFalse(thread.isAlive() && "OrientDB JDBC streaming cursor".equals(thread.getName()));
+        stmt.close();
+    }
+
+    @Test
+    public void shouldRefuseOtherStatementsWhileStreaming() throws Exception {
+        Statement stmt = conn.createStatement();
+        stmt.setFetchSize(2);
+        ResultSet rs = stmt.executeQuery("SELECT FROM Item ORDER BY intKey");
+        assertTrue(rs.next());
+
+        // the loader thread is still reading from the database
+        Statement other = conn.createStatement();
+        try {
+            other.executeQuery("SELECT FROM Item WHERE intKey = 1");
+            fail("The database is used by the loader thread");
+        } catch (SQLException e) {
+        }
+
+        // executing the streaming statement again closes its result set
+        rs = stmt.executeQuery("SELECT FROM Item ORDER BY intKey");
+        int rows = 0;
+        while (rs.next())
+            rows++;
+        assertEquals(20, rows);
+
+        // the exhausted result set no longer uses the database
+        ResultSet lookup = other.executeQuery("SELECT FROM Item WHERE intKey = 1");
+        assertTrue(lookup.next());
+        other.close();
+        stmt.close();
+    }
+
+    @Test
+    public void shouldPageForwardOnlyScans() throws Exception {
+        Statement stmt = conn.createStatement();
+        stmt.setFetchSize(3);
+        ResultSet rs = stmt.executeQuery("select * from Item");
+
+        int rows = 0;
+        while (rs.next()) {
+            rows++;
+            assertEquals(rows, rs.getInt("intKey"));
+            assertEquals(rows == 20, rs.isLast());
+        }
+        assertEquals("Unexpected number of rows", 20, rows);
+
+        // the last page is cut at the maximum number of rows
+        stmt.setMaxRows(7);
+        rs = stmt.executeQuery("SELECT FROM Item");
+        rows = 0;
+        while (rs.next())
+            rows++;
+        assertEquals("Unexpected number of rows", 7, rows);
+
+        // a sorted query cannot be resumed from the last RID
+        stmt.setMaxRows(0);
+        rs = stmt.executeQuery("SELECT FROM Item ORDER BY intKey DESC");
+        assertTrue(rs.next());
+        assertEquals(20, rs.getInt("intKey"));
+        rs.close();
+        stmt.close();
+    }
+
+    @Test
+    public void shouldPrefetchPagesOfForwardOnlyScans() throws Exception {
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        info.put("prefetch", "true");
+        Connection prefetching = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            Statement stmt = prefetching.createStatement();
+            stmt.setFetchSize(3);
+            ResultSet rs = stmt.executeQuery("SELECT FROM Item");
+            int rows = 0;
+            while (rs.next()) {
+                rows++;
+                assertEquals(rows, rs.getInt("intKey"));
+                assertEquals(rows == 20, rs.isLast());
+            }
+            assertEquals("Unexpected number of rows", 20, rows);
+
+            // closing the result set stops the loader, so the connection can be used again
+            rs = stmt.executeQuery("SELECT FROM Item");
+            assertTrue(rs.next());
+            rs.close();
+            rs = stmt.executeQuery("SELECT FROM Item");
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt("intKey"));
+            rs.close();
+            stmt.close();
+        } finally {
+            prefetching.close();
+        }
+    }
+
+    @Test
+    public void shouldDecodeLargeResultsInParallel() throws Exception {
+        ODatabaseDocumentTx db = conn.getOrientDatabase();
+        ODatabaseRecordThreadLocal.INSTANCE.set(db);
+        db.getMetadata().getSchema().createClass("Decoded");
+        Statement insert = conn.createStatement();
+        int documents = 4 * OrientJdbcParallelDecoder.MIN_ROWS_PER_TASK;
+        for (int i = 1; i <= documents; i++)
+            insert.addBatch("INSERT INTO Decoded (num, label) VALUES (" + i + ", 'label" + i + "')");
+        insert.executeBatch();
+        insert.close();
+        conn.commit();
+
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        info.put("parallelDecoding", "true");
+        Connection decoding = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            Statement stmt = decoding.createStatement();
+            ResultSet rs = stmt.executeQuery("SELECT FROM Decoded ORDER BY num");
+            int rows = 0;
+            while (rs.next()) {
+                rows++;
+                assertEquals(rows, rs.getInt("num"));
+                assertEquals("label" + rows, rs.getString("label"));
+            }
+            assertEquals("Unexpected number of rows", documents, rows);
+            rs.close();
+            stmt.close();
+        } finally {
+            decoding.close();
+        }
+    }
+
+    @Test
+    public void shouldFindColumnsIgnoringCase() throws Exception {
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT stringKey, intKey FROM Item WHERE intKey = 1");
+        assertTrue(rs.next());
+
+        // the RID column comes first, the last column must be found as well
+        assertEquals(2, rs.findColumn("stringKey"));
+        assertEquals(3, rs.findColumn("intKey"));
+        assertEquals(3, rs.findColumn("INTKEY"));
+        assertEquals(1, rs.getInt("IntKey"));
+        assertEquals("1", rs.getString("STRINGKEY"));
+        try {
+            rs.findColumn("missing");
+            assertTrue("The column should be missing", false);
+        } catch (SQLException e) {
+        }
+
+        // a result set with the same projection shares the label index
+        rs = stmt.executeQuery("SELECT stringKey, intKey FROM Item WHERE intKey = 2");
+        assertTrue(rs.next());
+        assertEquals(3, rs.findColumn("intkey"));
+        assertEquals(2, rs.getInt("intkey"));
+        rs.close();
+        stmt.close();
+    }
+
+    @Test
+    public void shouldReturnZeroForNullPrimitives() throws Exception {
+        Statement stmt = conn.createStatement();
+        stmt.executeUpdate("INSERT INTO Item (stringKey, intKey) VALUES ('nulls', 999)");
+        ResultSet rs = stmt.executeQuery("SELECT FROM Item WHERE intKey = 999");
+        assertTrue(rs.next());
+
+        assertEquals(0L, rs.getLong("length"));
+        assertTrue(rs.wasNull());
+        assertFalse(rs.getBoolean("published"));
+        assertTrue(rs.wasNull());
+        assertEquals(999, rs.getInt("intKey"));
+        assertFalse(rs.wasNull());
+        assertEquals(999d, rs.getDouble("intKey"), 0d);
+        assertEquals((short) 999, rs.getShort("intKey"));
+        assertEquals(0f, rs.getFloat("length"), 0f);
+        assertTrue(rs.wasNull());
+        assertEquals("nulls", rs.getString("stringKey"));
+        assertFalse(rs.wasNull());
+        rs.close();
+        stmt.close();
+    }
+
+    @Test
+    public void shouldDecodeColumnarResults() throws Exception {
+        Statement stmt = conn.createStatement();
+        stmt.unwrap(OrientJdbcStatement.class).setColumnar(true);
+        stmt.executeUpdate("INSERT INTO Item (stringKey, intKey) VALUES ('nulls', 999)");
+        ResultSet rs = stmt.executeQuery("SELECT stringKey, intKey, length FROM Item");
+
+        OrientJdbcColumnarResult columns = rs.unwrap(OrientJdbcColumnarResult.class);
+        assertEquals(21, columns.getRowCount());
+        assertEquals("intKey", columns.getColumnName(3));
+        double[] intKeys = columns.getColumnAsDoubleArray(3);
+        double sum = 0;
+        for (double intKey : intKeys)
+            sum += intKey;
+        assertEquals(210d + 999d, sum, 0d);
+        assertTrue(columns.isNull(4, 20));
+
+        // the standard getters read the same columns
+        int rows = 0;
+        while (rs.next()) {
+            rows++;
+            if (rows <= 20) {
+                assertEquals(rows, rs.getInt("intKey"));
+                assertEquals(String.valueOf(rows), rs.getString("stringKey"));
+                assertTrue(rs.getLong("length") > 0);
+                assertFalse(rs.wasNull());
+            } else {
+                assertEquals(0L, rs.getLong("length"));
+                assertTrue(rs.wasNull());
+                assertEquals("nulls", rs.getString(2));
+            }
+        }
+        assertEquals(21, rows);
+        rs.close();
+        stmt.close();
+    }
+
+    @Test
+    public void shouldScrollSpilledResults() throws Exception {
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        // about two items fit in the heap, the other ones are written to a temporary file
+        info.put("spillThreshold", "2500");
+        Connection spilling = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            Statement stmt = spilling.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+            ResultSet rs = stmt.executeQuery("SELECT FROM Item");
+            assertTrue(rs.last());
+            assertEquals(20, rs.getInt("intKey"));
+            assertEquals("20", rs.getString("stringKey"));
+            assertTrue(rs.absolute(5));
+            assertEquals(5, rs.getInt("intKey"));
+            assertTrue(rs.previous());
+            assertEquals(4, rs.getInt("intKey"));
+            assertTrue(rs.relative(10));
+            assertEquals(14, rs.getInt("intKey"));
+            assertTrue(rs.first());
+            assertEquals(1, rs.getInt("intKey"));
+            int rows = 1;
+            while (rs.next())
+                assertEquals(++rows, rs.getInt("intKey"));
+            assertEquals(20, rows);
+            rs.close();
+            stmt.close();
+        } finally {
+            spilling.close();
+        }
+    }
+
+    @Test
+    public void shouldReadInterleavedResultSetsOfDifferentConnections() throws Exception {
+        ResultSet rs = conn.createStatement().executeQuery("SELECT FROM Item WHERE intKey <= 2");
+
+        // opening a connection binds its database to the thread
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        Connection other = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            ResultSet otherRs = other.createStatement().executeQuery("SELECT FROM Item WHERE intKey > 18");
+            assertTrue(rs.next());
+            assertTrue(otherRs.next());
+            assertEquals(1, rs.getInt("intKey"));
+            assertEquals(19, otherRs.getInt("intKey"));
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt("intKey"));
+            assertTrue(otherRs.next());
+            assertEquals(20, otherRs.getInt("intKey"));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void shouldBindTheDatabaseToTheReadingThread() throws Exception {
+        final ResultSet rs = conn.createStatement().executeQuery("SELECT FROM Item WHERE intKey = 1");
+        assertTrue(rs.next());
+        final Object[] read = new Object[3];
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                read[0] = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+                try {
+                    read[1] = rs.getString("stringKey");
+                } catch (SQLException e) {
+                    read[1] = e;
+                }
+                read[2] = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+            }
+        };
+        reader.start();
+        reader.join();
+        assertEquals(null, read[0]);
+        assertEquals("1", read[1]);
+        assertTrue(read[2] == conn.getOrientDatabase());
+    }
+
+    @Test
+    public void shouldSeeUpdatesInScrollSensitiveResults() throws Exception {
+        assertTrue(conn.getMetaData().supportsResultSetType(ResultSet.TYPE_SCROLL_SENSITIVE));
+        Statement stmt = conn.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(5);
+        ResultSet rs = stmt.executeQuery("SELECT FROM Item");
+        assertEquals(ResultSet.TYPE_SCROLL_SENSITIVE, rs.getType());
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt("intKey"));
+
+        // the rows outside the current window are loaded again when the cursor reaches them
+        conn.createStatement().executeUpdate("UPDATE Item SET text = 'changed' WHERE intKey = 15");
+        assertTrue(rs.absolute(15));
+        assertEquals(15, rs.getInt("intKey"));
+        assertEquals("changed", rs.getString("text"));
+        assertTrue(rs.previous());
+        assertEquals(14, rs.getInt("intKey"));
+        assertTrue(rs.last());
+        assertEquals(20, rs.getInt("intKey"));
+        assertTrue(rs.first());
+        assertEquals(1, rs.getInt("intKey"));
+        int rows = 1;
+        while (rs.next())
+            assertEquals(++rows, rs.getInt("intKey"));
+        assertEquals(20, rows);
+
+        // the changes of the other connections are seen as well, and a deleted row is empty
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        Connection other = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            other.setAutoCommit(true);
+            other.createStatement().executeUpdate("UPDATE Item SET text = 'other' WHERE intKey = 3");
+            other.createStatement().executeUpdate("DELETE FROM Item WHERE intKey = 4");
+        } finally {
+            other.close();
+        }
+        assertTrue(rs.absolute(3));
+        assertEquals("other", rs.getString("text"));
+        assertTrue(rs.next());
+        rs.getObject("intKey");
+        assertTrue(rs.wasNull());
+        rs.close();
+        stmt.close();
+    }
+
+    @Test
+    public void shouldWriteBackUpdatableResults() throws Exception {
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        info.put("updateBatchSize", "5");
+        Connection updating = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            Statement stmt = updating.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_UPDATABLE);
+            ResultSet rs = stmt.executeQuery("SELECT FROM Item WHERE intKey <= 10");
+            assertEquals(ResultSet.CONCUR_UPDATABLE, rs.getConcurrency());
+
+            // the changes not confirmed by updateRow() are dropped when the cursor moves
+            assertTrue(rs.next());
+            rs.updateString("text", "dropped");
+            assertEquals("dropped", rs.getString("text"));
+            assertTrue(rs.next());
+            assertTrue(rs.previous());
+            assertFalse("dropped".equals(rs.getString("text")));
+            assertFalse(rs.rowUpdated());
+
+            // the rows are kept in memory until the update batch size is reached
+            for (int i = 1; i <= 4; i++) {
+                assertTrue(rs.absolute(i));
+                rs.updateString("text", "fixed " + i);
+                rs.updateRow();
+                assertTrue(rs.rowUpdated());
+            }
+            ResultSet check = conn.createStatement().executeQuery("SELECT FROM Item WHERE text LIKE 'fixed%'");
+            assertFalse(check.next());
+
+            // OrientDB cannot delete in a transaction a record indexed on a boolean property
+            assertTrue(rs.absolute(10));
+            try {
+                rs.deleteRow();
+                assertTrue("The row should not be deleted in a transaction", false);
+            } catch (SQLFeatureNotSupportedException e) {
+            }
+            assertFalse(rs.rowDeleted());
+
+            // the fifth row writes the batch to the transaction of the connection
+            rs.updateString("text", "fixed 10");
+            rs.updateRow();
+            // the records read by the first check are still in the local cache of the other connection
+            conn.getOrientDatabase().getLevel1Cache().invalidate();
+            check = conn.createStatement().executeQuery("SELECT FROM Item WHERE text LIKE 'fixed%'");
+            assertFalse(check.next());
+            updating.commit();
+            conn.getOrientDatabase().getLevel1Cache().invalidate();
+            check = conn.createStatement().executeQuery("SELECT FROM Item WHERE text LIKE 'fixed%'");
+            int rows = 0;
+            while (check.next())
+                rows++;
+            assertEquals(5, rows);
+
+            // the inserted rows are written when the result set is closed
+            rs.moveToInsertRow();
+            rs.updateString("stringKey", "new");
+            rs.updateInt("intKey", 1000);
+            rs.insertRow();
+            rs.moveToCurrentRow();
+            assertEquals(10, rs.getRow());
+            assertTrue(rs.rowUpdated());
+            assertFalse(rs.rowInserted());
+            rs.close();
+            updating.commit();
+            check = conn.createStatement().executeQuery("SELECT FROM Item WHERE intKey = 1000");
+            assertTrue(check.next());
+            assertEquals("new", check.getString("stringKey"));
+
+            // in auto-commit mode each row is written on its own
+            updating.setAutoCommit(true);
+            Connection deleting = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+            try {
+                deleting.setAutoCommit(true);
+                rs = deleting.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_UPDATABLE)
+                        .executeQuery("SELECT FROM Item WHERE intKey = 1000");
+                assertTrue(rs.next());
+                try {
+                    rs.deleteRow();
+                    assertTrue("Several rows are written by a transaction", false);
+                } catch (SQLFeatureNotSupportedException e) {
+                }
+                rs.close();
+            } finally {
+                deleting.close();
+            }
+            info.remove("updateBatchSize");
+            deleting = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+            try {
+                deleting.setAutoCommit(true);
+                rs = deleting.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_UPDATABLE)
+                        .executeQuery("SELECT FROM Item WHERE intKey = 1000");
+                assertTrue(rs.next());
+                rs.deleteRow();
+                assertTrue(rs.rowDeleted());
+                rs.close();
+            } finally {
+                deleting.close();
+            }
+            conn.getOrientDatabase().getLevel1Cache().invalidate();
+            check = conn.createStatement().executeQuery("SELECT FROM Item WHERE intKey = 1000");
+            assertFalse(check.next());
+
+            // the read-only result sets reject any change
+            rs = updating.createStatement().executeQuery("SELECT FROM Item");
+            assertTrue(rs.next());
+            try {
+                rs.updateString("text", "rejected");
+                assertTrue("The result set should not be updatable", false);
+            } catch (SQLException e) {
+            }
+            stmt.close();
+        } finally {
+            updating.close();
+        }
+    }
+
+    @Test
+    public void shouldRollBackTheUpdatedRows() throws Exception {
+        // each row is written as soon as it is updated, in the transaction of the connection
+        Statement stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_UPDATABLE);
+        ResultSet rs = stmt.executeQuery("SELECT FROM Item WHERE intKey = 2");
+        assertTrue(rs.next());
+        String text = rs.getString("text");
+        rs.updateString("text", "rolled back");
+        rs.updateRow();
+        conn.rollback();
+        assertEquals(text, rs.getString("text"));
+        assertFalse(rs.rowUpdated());
+        rs.close();
+        stmt.close();
+
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        Connection other = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            ResultSet check = other.createStatement().executeQuery("SELECT FROM Item WHERE intKey = 2");
+            assertTrue(check.next());
+            assertEquals(text, check.getString("text"));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void shouldKeepTheColumnsOfHeterogeneousResults() throws Exception {
+        ODatabaseDocumentTx db = conn.getOrientDatabase();
+        ODatabaseRecordThreadLocal.INSTANCE.set(db);
+        OClass mixed = db.getMetadata().getSchema().createClass("Mixed");
+        ODocument first = new ODocument("Mixed");
+        first.field("a", 1);
+        first.save();
+        // only the second document has the field b
+        ODocument second = new ODocument("Mixed");
+        second.field("a", 2);
+        second.field("b", "two");
+        second.save();
+
+        Statement stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        for (int execution = 0; execution < 2; execution++) {
+            ResultSet rs = stmt.executeQuery("SELECT FROM Mixed");
+            ResultSetMetaData metaData = rs.getMetaData();
+            assertEquals(3, metaData.getColumnCount());
+            assertEquals("a", metaData.getColumnName(2));
+            assertEquals("b", metaData.getColumnName(3));
+            assertTrue(rs.last());
+            assertEquals("two", rs.getString(3));
+            rs.close();
+        }
+
+        // the columns of a projection do not depend on the documents
+        ResultSet rs = stmt.executeQuery("SELECT b, a AS alpha FROM Mixed");
+        assertEquals(3, rs.getMetaData().getColumnCount());
+        assertEquals(2, rs.findColumn("b"));
+        assertEquals(3, rs.findColumn("alpha"));
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(3));
+        rs.close();
+
+        // the properties of the class are the columns of a result without documents
+        mixed.createProperty("c", OType.STRING);
+        rs = stmt.executeQuery("SELECT FROM Mixed WHERE a > 2");
+        assertEquals(2, rs.getMetaData().getColumnCount());
+        assertEquals("c", rs.getMetaData().getColumnName(2));
+        rs.close();
+        rs = stmt.executeQuery("SELECT FROM Mixed");
+        assertEquals(3, rs.getMetaData().getColumnCount());
+        rs.close();
+        stmt.close();
+    }
+
+    @Test
+    public void shouldFindTheNewFieldsOfTheDocuments() throws Exception {
+        PreparedStatement prepared = conn.prepareStatement("SELECT FROM Item WHERE intKey = ?");
+        prepared.setInt(1, 1);
+        ResultSet rs = prepared.executeQuery();
+        int columns = rs.getMetaData().getColumnCount();
+        rs.close();
+        // a new field of a document does not change the schema
+        conn.createStatement().executeUpdate("UPDATE Item SET extra = 'added' WHERE intKey = 2");
+        prepared.setInt(1, 2);
+        rs = prepared.executeQuery();
+        assertEquals(columns + 1, rs.getMetaData().getColumnCount());
+        assertTrue(rs.next());
+        assertEquals("added", rs.getString("extra"));
+        rs.close();
+        prepared.close();
+
+        // the columns of a command that is not parsed as a query are the fields of its documents
+        Statement stmt = conn.createStatement();
+        assertTrue(stmt.execute("SELECT stringKey FROM Item WHERE intKey = 2"));
+        assertEquals(2, stmt.getResultSet().getMetaData().getColumnCount());
+        assertTrue(stmt.execute("select FROM Item WHERE intKey = 2"));
+        assertEquals(columns + 1, stmt.getResultSet().getMetaData().getColumnCount());
+        stmt.close();
+    }
+
+    @Test
+    public void shouldConvertValuesToTheRequestedType() throws Exception {
+        ODatabaseDocumentTx db = conn.getOrientDatabase();
+        ODatabaseRecordThreadLocal.INSTANCE.set(db);
+        db.getMetadata().getSchema().createClass("Typed");
+        Date now = new Date();
+        ODocument address = new ODocument();
+        address.field("city", "Rome");
+        ODocument typed = new ODocument("Typed");
+        typed.field("tags", Arrays.asList("java", "orient"), OType.EMBEDDEDLIST);
+        typed.field("address", address, OType.EMBEDDED);
+        typed.field("created", now, OType.DATETIME);
+        typed.field("count", 3);
+        typed.save();
+
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT FROM Typed");
+        assertTrue(rs.next());
+        assertEquals(typed.getIdentity().toString(), rs.getObject(1, RowId.class).toString());
+        assertEquals(now.getTime(), rs.getObject("created", Timestamp.class).getTime());
+        assertEquals(Long.valueOf(3), rs.getObject("count", Long.class));
+        assertEquals("3", rs.getObject("count", String.class));
+
+        Array tags = rs.getObject("tags", Array.class);
+        assertEquals(Types.VARCHAR, tags.getBaseType());
+        assertEquals(Arrays.asList("java", "orient"), Arrays.asList((Object[]) tags.getArray()));
+        assertEquals(Arrays.asList("orient"), Arrays.asList((Object[]) tags.getArray(2, 1)));
+
+        Map<?, ?> map = rs.getObject("address", Map.class);
+        assertEquals("Rome", map.get("city"));
+        assertEquals(null, rs.getObject("missing", String.class));
+        assertTrue(rs.wasNull());
+
+        try {
+            rs.getObject("tags", Timestamp.class);
+            fail("A list cannot be read as a timestamp");
+        } catch (SQLException e) {
+            assertTrue(e.getCause() instanceof ClassCastException);
+        }
+        rs.close();
+        stmt.close();
+    }
+
+    @Test
+    public void shouldRoundTripACachedRowSet() throws Exception {
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT FROM Item");
+        OrientJdbcCachedRowSet rowSet = new OrientJdbcCachedRowSet();
+        rowSet.populate(rs);
+        rs.close();
+        assertEquals(20, rowSet.size());
+
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        rowSet.writeTo(compact);
+        OrientJdbcCachedRowSet read = OrientJdbcCachedRowSet.readFrom(new ByteArrayInputStream(compact.toByteArray()));
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(serialized);
+        out.writeObject(rowSet);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized.toByteArray()));
+        OrientJdbcCachedRowSet deserialized = (OrientJdbcCachedRowSet) in.readObject();
+
+        // the copies have the same rows, while the connection is no longer needed
+        rs = stmt.executeQuery("SELECT FROM Item");
+        int columnCount = rowSet.getMetaData().getColumnCount();
+        while (rs.next()) {
+            assertTrue(rowSet.next());
+            assertTrue(read.next());
+            assertTrue(deserialized.next());
+            assertEquals(rs.getInt("intKey"), read.getInt("intKey"));
+            assertEquals(rs.getString("stringKey"), read.getString("stringKey"));
+            assertEquals(rs.getDate("date").getTime(), read.getDate("date").getTime());
+            assertEquals(rs.getObject(1).toString(), read.getRowId(1).toString());
+            for (int column = 1; column <= columnCount; column++) {
+                assertEquals(rowSet.getObject(column), read.getObject(column));
+                assertEquals(rowSet.getObject(column), deserialized.getObject(column));
+            }
+        }
+        assertFalse(read.next());
+        assertFalse(deserialized.next());
+        rs.close();
+        stmt.close();
+
+        try {
+            read.updateInt("intKey", 1);
+            fail("The row set is read-only");
+        } catch (SQLFeatureNotSupportedException e) {
+        }
+    }
+
+    @Test
+    public void shouldResolveLinksOfManyRows() throws Exception {
+        ODatabaseDocumentTx db = conn.getOrientDatabase();
+        ODatabaseRecordThreadLocal.INSTANCE.set(db);
+        List<ODocument> articles = new ArrayList<ODocument>();
+        for (int i = 1; i <= 3; i++) {
+            ODocument article = new ODocument("Article");
+            article.field("uuid", i);
+            article.field("title", "article " + i);
+            articles.add(article.save());
+        }
+        // every author links the same articles and one of its own
+        for (int i = 1; i <= 4; i++) {
+            ODocument own = new ODocument("Article");
+            own.field("uuid", 100 + i);
+            own.field("title", "own article " + i);
+            own.save();
+            List<ODocument> linked = new ArrayList<ODocument>(articles);
+            linked.add(own);
+            ODocument author = new ODocument("Author");
+            author.field("uuid", i);
+            author.field("name", "author " + i);
+            author.field("articles", linked);
+            author.save();
+        }
+        // the articles are then read from the storage, not found in the local cache
+        db.getLevel1Cache().invalidate();
+
+        ArticleReadCounter counter = new ArticleReadCounter();
+        db.registerHook(counter);
+        try {
+            Statement stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+            ResultSet rs = stmt.executeQuery("SELECT FROM Author");
+            int rows = 0;
+            while (rs.next()) {
+                rows++;
+                List<?> linked = (List<?>) rs.getObject("articles");
+                // the first row loads the articles of all the rows at once
+                assertEquals(7, counter.articles.size());
+                if (rows == 1)
+                    renameArticles();
+                assertEquals(4, linked.size());
+                for (int i = 0; i < 3; i++) {
+                    ODocument article = (ODocument) linked.get(i);
+                    assertEquals(i + 1, ((Number) article.field("uuid")).intValue());
+                    assertEquals("article " + (i + 1), article.field("title"));
+                }
+                // the articles are not loaded again by the other rows
+                ODocument own = (ODocument) linked.get(3);
+                assertEquals("own article " + rows, own.field("title"));
+            }
+            assertEquals(4, rows);
+            rs.close();
+            stmt.close();
+        } finally {
+            db.unregisterHook(counter);
+        }
+    }
+
+    private void renameArticles() throws SQLException {
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        Connection other = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            other.setAutoCommit(true);
+            other.createStatement().executeUpdate("UPDATE Article SET title = 'renamed'");
+        } finally {
+            other.close();
+        }
+        ODatabaseRecordThreadLocal.INSTANCE.set(conn.getOrientDatabase());
+    }
+
+    private static class ArticleReadCounter extends ORecordHookAbstract {
+        final Set<ORID> articles = new HashSet<ORID>();
+
+        @Override
+        public void onRecordAfterRead(ORecord<?> iRecord) {
+            if (iRecord instanceof ODocument && "Article".equals(((ODocument) iRecord).getClassName()))
+                articles.add(iRecord.getIdentity());
+        }
+    }
+
 }
@@ -1,13 +1,24 @@
 package com.orientechnologies.orient.jdbc;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Properties;
 
 import org.junit.Test;
 
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.hook.ORecordHookAbstract;
+import com.orientechnologies.orient.core.record.ORecord;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class OrientJdbcStatementTest extends OrientJdbcBaseTest {
 
@@ -28,4 +39,162 @@ public class OrientJdbcStatementTest extends OrientJdbcBaseTest {
         assertTrue(!stmt.getMoreResults());
     }
 
+    @Test
+    public void shouldStopLoadingAtMaxRows() throws Exception {
+        ReadCounter counter = new ReadCounter();
+        ODatabaseDocumentTx database = conn.unwrap(ODatabaseDocumentTx.class);
+        database.registerHook(counter);
+        try {
+            Statement stmt = conn.createStatement();
+            stmt.setMaxRows(5);
+            assertEquals(5, countRows(stmt.executeQuery("SELECT FROM Item")));
+            assertTrue("Too many records loaded: " + counter.reads, counter.reads <= 5);
+
+            counter.reads = 0;
+            assertTrue(stmt.execute("SELECT FROM Item"));
+            assertEquals(5, countRows(stmt.getResultSet()));
+            assertTrue("Too many records loaded: " + counter.reads, counter.reads <= 5);
+
+            counter.reads = 0;
+            PreparedStatement prepared = conn.prepareStatement("SELECT FROM Item WHERE intKey > ?");
+            prepared.setMaxRows(5);
+            prepared.setInt(1, 0);
+            assertEquals(5, countRows(prepared.executeQuery()));
+            assertTrue("Too many records loaded: " + counter.reads, counter.reads <= 5);
+            // a new execution starts again from the first record
+            assertEquals(5, countRows(prepared.executeQuery()));
+        } finally {
+            database.unregisterHook(counter);
+        }
+    }
+
+    @Test
+    public void shouldMergeMaxRowsWithQueryLimit() throws Exception {
+        Statement stmt = conn.createStatement();
+        stmt.setMaxRows(5);
+        assertEquals(3, countRows(stmt.executeQuery("SELECT FROM Item LIMIT 3")));
+        assertEquals(5, countRows(stmt.executeQuery("SELECT FROM Item LIMIT 10")));
+        assertEquals(5, countRows(stmt.executeQuery("SELECT FROM Item ORDER BY intKey DESC")));
+    }
+
+    @Test
+    public void shouldExecuteBatchWithMassiveInsertIntent() throws Exception {
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        info.put("massiveInsert", "true");
+        Connection massive = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            Statement stmt = massive.createStatement();
+            for (int i = 201; i <= 210; i++)
+                stmt.addBatch("INSERT INTO Item (stringKey, intKey) VALUES ('massive" + i + "', " + i + ")");
+            int[] counts = stmt.executeBatch();
+            assertEquals(10, counts.length);
+            for (int count : counts)
+                assertEquals(1, count);
+
+            // the intent is removed once the batch is executed
+            assertEquals(10, countRows(stmt.executeQuery("SELECT FROM Item WHERE intKey > 200")));
+        } finally {
+            massive.close();
+        }
+        assertEquals(10, countRows(conn.createStatement().executeQuery("SELECT FROM Item WHERE intKey > 200")));
+    }
+
+    @Test
+    public void shouldLimitTheBytesOfLoadedResults() throws Exception {
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT FROM Item");
+        OrientJdbcResultMemory memory = rs.unwrap(OrientJdbcResultMemory.class);
+        assertTrue(memory.getRetainedBytes() > 20 * OrientJdbcResultMemory.RECORD_OVERHEAD);
+        assertEquals(0, memory.getMaxBytes());
+        rs.close();
+        assertEquals(0, memory.getRetainedBytes());
+
+        // the limit is larger than one item and smaller than all of them
+        long limit = 10000;
+        // a forward-only result too large to be loaded is streamed
+        ((OrientJdbcStatement) stmt).setMaxResultBytes(limit);
+        rs = stmt.executeQuery("SELECT FROM Item");
+        int rows = 0;
+        while (rs.next()) {
+            rows++;
+            assertEquals(rows, rs.getInt("intKey"));
+        }
+        assertEquals(20, rows);
+        rs.close();
+        stmt.close();
+
+        // a scrollable one fails
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        info.put("maxResultBytes", String.valueOf(limit));
+        Connection limited = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            stmt = limited.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+            assertEquals(limit, ((OrientJdbcStatement) stmt).getMaxResultBytes());
+            try {
+                stmt.executeQuery("SELECT FROM Item");
+                fail("The result exceeds the maximum size");
+            } catch (SQLException e) {
+                assertEquals(XOpenSqlStates.PROGRAM_LIMIT_EXCEEDED, e.getSQLState());
+            }
+            rs = stmt.executeQuery("SELECT FROM Item WHERE intKey = 1");
+            assertTrue(rs.next());
+            rs.close();
+            stmt.close();
+        } finally {
+            limited.close();
+        }
+    }
+
+    @Test
+    public void shouldApplyFetchPlan() throws Exception {
+        Properties info = new Properties();
+        info.put("user", "admin");
+        info.put("password", "admin");
+        info.put("fetchPlan", "*:-1");
+        Connection fetching = DriverManager.getConnection("jdbc:orient:" + DB_URL, info);
+        try {
+            // the statements start with the fetch plan of the connection
+            OrientJdbcStatement stmt = fetching.createStatement().unwrap(OrientJdbcStatement.class);
+            assertEquals("*:-1", stmt.getFetchPlan());
+            assertEquals(20, countRows(stmt.executeQuery("SELECT FROM Item")));
+
+            stmt.setFetchPlan("*:0");
+            assertEquals("*:0", stmt.getFetchPlan());
+            assertEquals(5, countRows(stmt.executeQuery("SELECT FROM Item WHERE intKey <= 5")));
+            try {
+                stmt.setFetchPlan("*");
+                assertTrue("The fetch plan should be rejected", false);
+            } catch (SQLException e) {
+            }
+
+            PreparedStatement prepared = fetching.prepareStatement("SELECT FROM Item WHERE intKey > ?");
+            prepared.setInt(1, 15);
+            assertEquals("*:-1", prepared.unwrap(OrientJdbcStatement.class).getFetchPlan());
+            assertEquals(5, countRows(prepared.executeQuery()));
+        } finally {
+            fetching.close();
+        }
+        assertNull(conn.createStatement().unwrap(OrientJdbcStatement.class).getFetchPlan());
+    }
+
+    private static int countRows(ResultSet rs) throws SQLException {
+        int rows = 0;
+        while (rs.next())
+            rows++;
+        return rows;
+    }
+
+    private static class ReadCounter extends ORecordHookAbstract {
+        int reads;
+
+        @Override
+        public void onRecordAfterRead(ORecord<?> iRecord) {
+            reads++;
+        }
+    }
+
 }